@@ -0,0 +1,45 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 长招标文件分块分析配置（bid-analysis.chunking.*）
+ *
+ * 预估token数超过maxChunkTokens的招标文件按标题切分为若干块，各块并行分析（map），
+ * 再把各块的结果合并（reduce），避免超出模型上下文窗口被截断。
+ */
+@ConfigurationProperties(prefix = "bid-analysis.chunking")
+public class ChunkedAnalysisProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 每块的预估token上限，需为系统提示和输出留出上下文空间
+     */
+    private int maxChunkTokens = 1200;
+
+    /**
+     * 同时分析的块数，实际并发仍受并发限制器约束
+     */
+    private int parallelism = 4;
+
+    /**
+     * 一次分析最多调用模型的块数，超过时直接拒绝（HTTP 413），不再开始注定超时的分析
+     *
+     * 分块调用属于长任务，按 bulk-max-share 0.5、初始并发上限4 只有2个同时进行，每块约15秒，
+     * 300秒的请求超时内约能完成40次调用，扣除合并调用后取32。
+     */
+    private int maxChunks = 32;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getMaxChunkTokens() { return maxChunkTokens; }
+    public void setMaxChunkTokens(int maxChunkTokens) { this.maxChunkTokens = maxChunkTokens; }
+
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public int getMaxChunks() { return maxChunks; }
+    public void setMaxChunks(int maxChunks) { this.maxChunks = maxChunks; }
+}
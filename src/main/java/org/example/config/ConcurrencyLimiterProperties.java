@@ -0,0 +1,86 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Ollama并发限制配置（ollama.limiter.*）
+ */
+@ConfigurationProperties(prefix = "ollama.limiter")
+public class ConcurrencyLimiterProperties {
+
+    /**
+     * 是否启用自适应并发限制
+     */
+    private boolean enabled = true;
+
+    /**
+     * 初始并发上限
+     */
+    private int initialLimit = 4;
+
+    private int minLimit = 1;
+
+    private int maxLimit = 32;
+
+    /**
+     * 等待队列长度，队列满时立即拒绝（HTTP 429）
+     */
+    private int maxQueueSize = 64;
+
+    /**
+     * 在队列中等待的最长时间，超时同样按拒绝处理
+     */
+    private Duration maxQueueWait = Duration.ofSeconds(30);
+
+    /**
+     * 允许的延迟膨胀倍数：短期延迟不超过长期基线的该倍数时上限可以增长
+     */
+    private double tolerance = 2.0;
+
+    /**
+     * 每次调整上限时新值所占的权重
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * 调用失败时上限乘以的系数
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * 拒绝时返回的Retry-After
+     */
+    private Duration retryAfter = Duration.ofSeconds(5);
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public int getInitialLimit() { return initialLimit; }
+    public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+    public int getMinLimit() { return minLimit; }
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public int getMaxQueueSize() { return maxQueueSize; }
+    public void setMaxQueueSize(int maxQueueSize) { this.maxQueueSize = maxQueueSize; }
+
+    public Duration getMaxQueueWait() { return maxQueueWait; }
+    public void setMaxQueueWait(Duration maxQueueWait) { this.maxQueueWait = maxQueueWait; }
+
+    public double getTolerance() { return tolerance; }
+    public void setTolerance(double tolerance) { this.tolerance = tolerance; }
+
+    public double getSmoothing() { return smoothing; }
+    public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+    public double getBackoffRatio() { return backoffRatio; }
+    public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+
+    public Duration getRetryAfter() { return retryAfter; }
+    public void setRetryAfter(Duration retryAfter) { this.retryAfter = retryAfter; }
+}
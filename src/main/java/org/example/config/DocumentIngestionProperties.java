@@ -0,0 +1,45 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * PDF、DOCX招标文件文字提取配置（document-ingestion.*）
+ *
+ * 每个上传文件在有界线程池上由一个任务提取，多个上传并行；PDF只解析一次，按页段依次提取并检查字符上限；
+ * DOCX以流式方式解析正文XML。
+ */
+@ConfigurationProperties(prefix = "document-ingestion")
+public class DocumentIngestionProperties {
+
+    /**
+     * 提取线程数上限，所有上传请求共用；同时打开的PDF不超过该数，堆中缓存合计不超过 parallelism × pdfMaxMainMemoryBytes
+     */
+    private int parallelism = 4;
+
+    /**
+     * PDF每次提取的页数，每段提取后检查字符上限和是否已取消
+     */
+    private int pdfPagesPerTask = 10;
+
+    /**
+     * PDF页数上限，超过时拒绝
+     */
+    private int maxPages = 2000;
+
+    /**
+     * 每个打开的PDF在堆中缓存解析数据的上限（字节），超出部分写入临时文件
+     */
+    private long pdfMaxMainMemoryBytes = 16L * 1024 * 1024;
+
+    public int getParallelism() { return parallelism; }
+    public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+
+    public int getPdfPagesPerTask() { return pdfPagesPerTask; }
+    public void setPdfPagesPerTask(int pdfPagesPerTask) { this.pdfPagesPerTask = pdfPagesPerTask; }
+
+    public int getMaxPages() { return maxPages; }
+    public void setMaxPages(int maxPages) { this.maxPages = maxPages; }
+
+    public long getPdfMaxMainMemoryBytes() { return pdfMaxMainMemoryBytes; }
+    public void setPdfMaxMainMemoryBytes(long pdfMaxMainMemoryBytes) { this.pdfMaxMainMemoryBytes = pdfMaxMainMemoryBytes; }
+}
@@ -0,0 +1,54 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 文档存储配置（document-store.*）
+ *
+ * 文档按内容的SHA-256存储，先放入内存层，同时写入磁盘层；内存层淘汰后从磁盘读回。
+ */
+@ConfigurationProperties(prefix = "document-store")
+public class DocumentStoreProperties {
+
+    /**
+     * 内存层占用上限（字节，按字符串大小估算）
+     */
+    private long memoryMaxBytes = 128L * 1024 * 1024;
+
+    /**
+     * 内存层中的文档最后一次访问后保留的时间
+     */
+    private Duration memoryTtl = Duration.ofHours(1);
+
+    /**
+     * 是否启用磁盘层；关闭时文档只在内存中，淘汰后需重新上传
+     */
+    private boolean diskEnabled = true;
+
+    /**
+     * 磁盘层目录
+     */
+    private String directory = System.getProperty("java.io.tmpdir") + "/spring-ai-demo/documents";
+
+    /**
+     * 磁盘层中的文档最后一次访问后保留的时间
+     */
+    private Duration diskTtl = Duration.ofDays(7);
+
+    public long getMemoryMaxBytes() { return memoryMaxBytes; }
+    public void setMemoryMaxBytes(long memoryMaxBytes) { this.memoryMaxBytes = memoryMaxBytes; }
+
+    public Duration getMemoryTtl() { return memoryTtl; }
+    public void setMemoryTtl(Duration memoryTtl) { this.memoryTtl = memoryTtl; }
+
+    public boolean isDiskEnabled() { return diskEnabled; }
+    public void setDiskEnabled(boolean diskEnabled) { this.diskEnabled = diskEnabled; }
+
+    public String getDirectory() { return directory; }
+    public void setDirectory(String directory) { this.directory = directory; }
+
+    public Duration getDiskTtl() { return diskTtl; }
+    public void setDiskTtl(Duration diskTtl) { this.diskTtl = diskTtl; }
+}
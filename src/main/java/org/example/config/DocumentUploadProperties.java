@@ -0,0 +1,36 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 文档上传配置（document-upload.*）
+ *
+ * 上传内容先流式写入临时文件，再从开头取样判断编码，最后从临时文件逐块解码，不在堆中保留整个文件的字节。
+ */
+@ConfigurationProperties(prefix = "document-upload")
+public class DocumentUploadProperties {
+
+    /**
+     * 单个上传文件的字节上限
+     */
+    private long maxBytes = 20L * 1024 * 1024;
+
+    /**
+     * 解码后的字符上限，超过时拒绝，避免解码后的字符串占满内存
+     */
+    private int maxChars = 2_000_000;
+
+    /**
+     * 判断编码时从文件开头读取的字节数
+     */
+    private int sampleBytes = 64 * 1024;
+
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+    public int getMaxChars() { return maxChars; }
+    public void setMaxChars(int maxChars) { this.maxChars = maxChars; }
+
+    public int getSampleBytes() { return sampleBytes; }
+    public void setSampleBytes(int sampleBytes) { this.sampleBytes = sampleBytes; }
+}
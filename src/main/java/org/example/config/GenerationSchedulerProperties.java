@@ -0,0 +1,63 @@
+package org.example.config;
+
+import org.example.service.RequestClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 生成请求调度配置（ollama.scheduler.*）
+ */
+@ConfigurationProperties(prefix = "ollama.scheduler")
+public class GenerationSchedulerProperties {
+
+    /**
+     * 各类别的加权公平队列权重，权重越大分到的调度份额越多
+     */
+    private Map<RequestClass, Integer> weights = new EnumMap<>(RequestClass.class);
+
+    /**
+     * 各类别预估的输出token数，与输入token数相加作为请求成本
+     */
+    private Map<RequestClass, Integer> expectedOutputTokens = new EnumMap<>(RequestClass.class);
+
+    /**
+     * 长任务最多占用的并发份额，为交互请求保留余量
+     */
+    private double bulkMaxShare = 0.5;
+
+    /**
+     * 未指定类别时，输入token数超过该值按长任务调度
+     */
+    private int bulkPromptTokens = 4000;
+
+    public GenerationSchedulerProperties() {
+        weights.put(RequestClass.INTERACTIVE, 8);
+        weights.put(RequestClass.SECTION, 3);
+        weights.put(RequestClass.BULK, 1);
+        expectedOutputTokens.put(RequestClass.INTERACTIVE, 256);
+        expectedOutputTokens.put(RequestClass.SECTION, 1024);
+        expectedOutputTokens.put(RequestClass.BULK, 2048);
+    }
+
+    public int weightOf(RequestClass requestClass) {
+        return Math.max(1, weights.getOrDefault(requestClass, 1));
+    }
+
+    public int expectedOutputTokensOf(RequestClass requestClass) {
+        return expectedOutputTokens.getOrDefault(requestClass, 1024);
+    }
+
+    public Map<RequestClass, Integer> getWeights() { return weights; }
+    public void setWeights(Map<RequestClass, Integer> weights) { this.weights.putAll(weights); }
+
+    public Map<RequestClass, Integer> getExpectedOutputTokens() { return expectedOutputTokens; }
+    public void setExpectedOutputTokens(Map<RequestClass, Integer> expectedOutputTokens) { this.expectedOutputTokens.putAll(expectedOutputTokens); }
+
+    public double getBulkMaxShare() { return bulkMaxShare; }
+    public void setBulkMaxShare(double bulkMaxShare) { this.bulkMaxShare = bulkMaxShare; }
+
+    public int getBulkPromptTokens() { return bulkPromptTokens; }
+    public void setBulkPromptTokens(int bulkPromptTokens) { this.bulkPromptTokens = bulkPromptTokens; }
+}
@@ -0,0 +1,44 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * LLM响应缓存配置（ollama.cache.*）
+ */
+@ConfigurationProperties(prefix = "ollama.cache")
+public class LlmCacheProperties {
+
+    /**
+     * 是否启用精确匹配缓存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存占用内存上限（字节，按字符串大小估算）
+     */
+    private long maxBytes = 64L * 1024 * 1024;
+
+    /**
+     * 缓存条目的存活时间
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * 跳过缓存读取的请求头，值为 bypass 或 no-cache 时生效
+     */
+    private String bypassHeader = "X-LLM-Cache";
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+
+    public Duration getTtl() { return ttl; }
+    public void setTtl(Duration ttl) { this.ttl = ttl; }
+
+    public String getBypassHeader() { return bypassHeader; }
+    public void setBypassHeader(String bypassHeader) { this.bypassHeader = bypassHeader; }
+}
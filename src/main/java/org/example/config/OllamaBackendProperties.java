@@ -0,0 +1,106 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ollama后端节点池配置（ollama.backends.*）
+ *
+ * 未配置任何节点时使用 ollama.base-url 作为唯一节点。
+ */
+@ConfigurationProperties(prefix = "ollama.backends")
+public class OllamaBackendProperties {
+
+    /**
+     * Ollama节点列表
+     */
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    /**
+     * 主动健康检查（GET /api/tags）的间隔，为0时不启用
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(10);
+
+    /**
+     * 单次健康检查的超时时间
+     */
+    private Duration healthCheckTimeout = Duration.ofSeconds(3);
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * 模型在节点上保持加载的时间窗口，窗口内优先路由到该节点，一般与 ollama.keep-alive 一致
+     */
+    private Duration affinityWindow = Duration.ofMinutes(30);
+
+    /**
+     * 已加载模型的节点比最空闲节点多出的在途请求数不超过该值时，仍优先选择已加载模型的节点
+     */
+    private int affinitySlack = 2;
+
+    /**
+     * 每个节点的熔断器
+     */
+    public static class CircuitBreaker {
+
+        /**
+         * 连续失败多少次后打开（摘除节点）
+         */
+        private int failureThreshold = 3;
+
+        /**
+         * 打开的时长，到期后进入半开状态放行试探请求
+         */
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        /**
+         * 半开状态下允许同时进行的试探请求数
+         */
+        private int halfOpenMaxCalls = 1;
+
+        public int getFailureThreshold() { return failureThreshold; }
+        public void setFailureThreshold(int failureThreshold) { this.failureThreshold = failureThreshold; }
+
+        public Duration getOpenDuration() { return openDuration; }
+        public void setOpenDuration(Duration openDuration) { this.openDuration = openDuration; }
+
+        public int getHalfOpenMaxCalls() { return halfOpenMaxCalls; }
+        public void setHalfOpenMaxCalls(int halfOpenMaxCalls) { this.halfOpenMaxCalls = halfOpenMaxCalls; }
+    }
+
+    public static class Endpoint {
+
+        /**
+         * 节点名称，用于指标标签，默认取 host:port
+         */
+        private String name;
+
+        private String url;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+
+        public String getUrl() { return url; }
+        public void setUrl(String url) { this.url = url; }
+    }
+
+    public List<Endpoint> getEndpoints() { return endpoints; }
+    public void setEndpoints(List<Endpoint> endpoints) { this.endpoints = endpoints; }
+
+    public Duration getHealthCheckInterval() { return healthCheckInterval; }
+    public void setHealthCheckInterval(Duration healthCheckInterval) { this.healthCheckInterval = healthCheckInterval; }
+
+    public Duration getHealthCheckTimeout() { return healthCheckTimeout; }
+    public void setHealthCheckTimeout(Duration healthCheckTimeout) { this.healthCheckTimeout = healthCheckTimeout; }
+
+    public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+
+    public Duration getAffinityWindow() { return affinityWindow; }
+    public void setAffinityWindow(Duration affinityWindow) { this.affinityWindow = affinityWindow; }
+
+    public int getAffinitySlack() { return affinitySlack; }
+    public void setAffinitySlack(int affinitySlack) { this.affinitySlack = affinitySlack; }
+}
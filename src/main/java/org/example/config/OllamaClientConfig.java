@@ -0,0 +1,147 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import org.example.service.OllamaBackendPool;
+import org.example.service.RequestClass;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Ollama HTTP客户端配置：连接池、超时、压缩、指标与节点池
+ */
+@Configuration
+public class OllamaClientConfig {
+
+    /**
+     * Reactor上下文中记录请求开始时间的key，用于统计获取连接的等待时间
+     */
+    private static final String ACQUIRE_START = OllamaClientConfig.class.getName() + ".acquireStart";
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider ollamaConnectionProvider(OllamaClientProperties properties) {
+        OllamaClientProperties.Pool pool = properties.getPool();
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("ollama")
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireMaxCount(pool.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .metrics(properties.isMetricsEnabled());
+
+        if (!pool.getEvictionInterval().isZero()) {
+            builder.evictInBackground(pool.getEvictionInterval());
+        }
+
+        for (Map.Entry<String, OllamaClientProperties.Host> entry : properties.getHosts().entrySet()) {
+            OllamaClientProperties.Host host = entry.getValue();
+            builder.forRemoteHost(toAddress(entry.getKey()), spec -> {
+                if (host.getMaxConnections() != null) {
+                    spec.maxConnections(host.getMaxConnections());
+                }
+                if (host.getPendingAcquireMaxCount() != null) {
+                    spec.pendingAcquireMaxCount(host.getPendingAcquireMaxCount());
+                }
+            });
+        }
+
+        return builder.build();
+    }
+
+    @Bean
+    public ReactorClientHttpConnector ollamaClientHttpConnector(ConnectionProvider ollamaConnectionProvider,
+                                                                OllamaClientProperties properties,
+                                                                ResilienceProperties resilienceProperties,
+                                                                MeterRegistry meterRegistry) {
+        validateResponseTimeout(properties.getResponseTimeout(), resilienceProperties);
+
+        Timer acquireTimer = Timer.builder("ollama.client.acquire.wait")
+                .description("从发起请求到获得可用连接的等待时间")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        HttpClient httpClient = HttpClient.create(ollamaConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .compress(properties.isCompression())
+                .responseTimeout(properties.getResponseTimeout())
+                .metrics(properties.isMetricsEnabled(), Function.identity())
+                .doOnRequest((request, connection) -> {
+                    Long start = request.currentContextView().getOrDefault(ACQUIRE_START, null);
+                    if (start != null) {
+                        acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                });
+
+        return new ReactorClientHttpConnector(httpClient);
+    }
+
+    /**
+     * 连接读超时不得小于最长的截止时间：非流式调用在生成结束前没有响应，读超时先到会使截止时间失效
+     */
+    static void validateResponseTimeout(Duration responseTimeout, ResilienceProperties resilienceProperties) {
+        for (Map.Entry<RequestClass, Duration> deadline : resilienceProperties.getDeadlines().entrySet()) {
+            if (responseTimeout.compareTo(deadline.getValue()) < 0) {
+                throw new IllegalStateException(String.format(
+                        "ollama.client.response-timeout (%s) 小于 ollama.resilience.deadlines.%s (%s)，"
+                                + "非流式调用会先触发读超时而不是截止时间",
+                        responseTimeout, deadline.getKey().name().toLowerCase(Locale.ROOT), deadline.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Ollama节点池，所有节点共用同一个连接器（连接池按主机分别计数）
+     */
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public OllamaBackendPool ollamaBackendPool(ReactorClientHttpConnector ollamaClientHttpConnector,
+                                               OllamaClientProperties properties,
+                                               OllamaBackendProperties backendProperties,
+                                               MeterRegistry meterRegistry,
+                                               @Value("${ollama.base-url:http://localhost:11434}") String baseUrl) {
+        WebClient.Builder builder = WebClient.builder()
+                .clientConnector(ollamaClientHttpConnector)
+                .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(properties.getMaxInMemorySize()))
+                .filter(acquireTimingFilter());
+
+        List<OllamaBackendProperties.Endpoint> endpoints = backendProperties.getEndpoints();
+        if (endpoints.isEmpty()) {
+            OllamaBackendProperties.Endpoint endpoint = new OllamaBackendProperties.Endpoint();
+            endpoint.setUrl(baseUrl);
+            endpoints = Collections.singletonList(endpoint);
+        }
+        return new OllamaBackendPool(backendProperties, endpoints, builder, meterRegistry);
+    }
+
+    private static ExchangeFilterFunction acquireTimingFilter() {
+        return (request, next) -> next.exchange(request)
+                .contextWrite(context -> context.put(ACQUIRE_START, System.nanoTime()));
+    }
+
+    private static InetSocketAddress toAddress(String hostAndPort) {
+        int index = hostAndPort.lastIndexOf(':');
+        if (index < 0) {
+            throw new IllegalArgumentException("ollama.client.hosts 的key必须是 host:port 格式: " + hostAndPort);
+        }
+        return InetSocketAddress.createUnresolved(hostAndPort.substring(0, index),
+                Integer.parseInt(hostAndPort.substring(index + 1)));
+    }
+}
@@ -0,0 +1,144 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Ollama HTTP客户端配置（ollama.client.*）
+ *
+ * 连接池大小建议与Ollama的并行槽位数（OLLAMA_NUM_PARALLEL）保持一致，
+ * 超出部分在pending队列中等待，而不是在Ollama内部排队。
+ */
+@ConfigurationProperties(prefix = "ollama.client")
+public class OllamaClientProperties {
+
+    /**
+     * 建立TCP连接的超时时间
+     */
+    private Duration connectTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 两次网络读之间允许的最长间隔
+     *
+     * 非流式调用在生成结束前没有任何响应，因此不得小于 ollama.resilience.deadlines 中最长的截止时间，
+     * 否则超时表现为连接读超时（502）而不是截止时间（504）；启动时校验。
+     */
+    private Duration responseTimeout = Duration.ofSeconds(300);
+
+    /**
+     * 是否请求gzip压缩的响应
+     */
+    private boolean compression = true;
+
+    /**
+     * 是否启用HTTP keep-alive及TCP keep-alive
+     */
+    private boolean keepAlive = true;
+
+    /**
+     * 非流式响应允许缓存在内存中的最大字节数
+     */
+    private int maxInMemorySize = 16 * 1024 * 1024;
+
+    /**
+     * 是否向Micrometer导出连接池和请求指标
+     */
+    private boolean metricsEnabled = true;
+
+    private final Pool pool = new Pool();
+
+    /**
+     * 按主机覆盖的连接池限制，key为 host:port
+     */
+    private Map<String, Host> hosts = new LinkedHashMap<>();
+
+    public static class Pool {
+
+        /**
+         * 每个主机的最大连接数
+         */
+        private int maxConnections = 16;
+
+        /**
+         * 等待获取连接的最大请求数，超出立即失败
+         */
+        private int pendingAcquireMaxCount = 256;
+
+        /**
+         * 等待获取连接的最长时间
+         */
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+        /**
+         * 空闲连接最长保留时间
+         */
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+
+        /**
+         * 连接最长存活时间
+         */
+        private Duration maxLifeTime = Duration.ofMinutes(10);
+
+        /**
+         * 后台清理空闲连接的间隔，为0时不启用后台清理
+         */
+        private Duration evictionInterval = Duration.ofSeconds(30);
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public int getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+
+        public Duration getPendingAcquireTimeout() { return pendingAcquireTimeout; }
+        public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) { this.pendingAcquireTimeout = pendingAcquireTimeout; }
+
+        public Duration getMaxIdleTime() { return maxIdleTime; }
+        public void setMaxIdleTime(Duration maxIdleTime) { this.maxIdleTime = maxIdleTime; }
+
+        public Duration getMaxLifeTime() { return maxLifeTime; }
+        public void setMaxLifeTime(Duration maxLifeTime) { this.maxLifeTime = maxLifeTime; }
+
+        public Duration getEvictionInterval() { return evictionInterval; }
+        public void setEvictionInterval(Duration evictionInterval) { this.evictionInterval = evictionInterval; }
+    }
+
+    public static class Host {
+
+        private Integer maxConnections;
+
+        private Integer pendingAcquireMaxCount;
+
+        public Integer getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(Integer maxConnections) { this.maxConnections = maxConnections; }
+
+        public Integer getPendingAcquireMaxCount() { return pendingAcquireMaxCount; }
+        public void setPendingAcquireMaxCount(Integer pendingAcquireMaxCount) { this.pendingAcquireMaxCount = pendingAcquireMaxCount; }
+    }
+
+    public Duration getConnectTimeout() { return connectTimeout; }
+    public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+    public Duration getResponseTimeout() { return responseTimeout; }
+    public void setResponseTimeout(Duration responseTimeout) { this.responseTimeout = responseTimeout; }
+
+    public boolean isCompression() { return compression; }
+    public void setCompression(boolean compression) { this.compression = compression; }
+
+    public boolean isKeepAlive() { return keepAlive; }
+    public void setKeepAlive(boolean keepAlive) { this.keepAlive = keepAlive; }
+
+    public int getMaxInMemorySize() { return maxInMemorySize; }
+    public void setMaxInMemorySize(int maxInMemorySize) { this.maxInMemorySize = maxInMemorySize; }
+
+    public boolean isMetricsEnabled() { return metricsEnabled; }
+    public void setMetricsEnabled(boolean metricsEnabled) { this.metricsEnabled = metricsEnabled; }
+
+    public Pool getPool() { return pool; }
+
+    public Map<String, Host> getHosts() { return hosts; }
+    public void setHosts(Map<String, Host> hosts) { this.hosts = hosts; }
+}
@@ -0,0 +1,82 @@
+package org.example.config;
+
+import org.example.service.RequestClass;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 生成调用的截止时间与对冲请求配置（ollama.resilience.*）
+ */
+@ConfigurationProperties(prefix = "ollama.resilience")
+public class ResilienceProperties {
+
+    /**
+     * 各类别单次生成的截止时间（不含排队时间）；流式调用为等待首个token的时间
+     */
+    private Map<RequestClass, Duration> deadlines = new EnumMap<>(RequestClass.class);
+
+    private final Hedge hedge = new Hedge();
+
+    public ResilienceProperties() {
+        deadlines.put(RequestClass.INTERACTIVE, Duration.ofSeconds(60));
+        deadlines.put(RequestClass.SECTION, Duration.ofSeconds(120));
+        deadlines.put(RequestClass.BULK, Duration.ofSeconds(240));
+    }
+
+    public Duration deadlineOf(RequestClass requestClass) {
+        return deadlines.getOrDefault(requestClass, Duration.ofSeconds(120));
+    }
+
+    /**
+     * 对冲请求：调用耗时超过近期分位数时，向另一个节点发出相同请求，先返回的结果生效，另一个被取消
+     */
+    public static class Hedge {
+
+        private boolean enabled = false;
+
+        /**
+         * 触发对冲的耗时分位数
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 样本数不足时不对冲
+         */
+        private int minSamples = 20;
+
+        /**
+         * 每个类别保留的最近耗时样本数
+         */
+        private int windowSize = 200;
+
+        private Duration minDelay = Duration.ofSeconds(1);
+
+        private Duration maxDelay = Duration.ofSeconds(60);
+
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public double getPercentile() { return percentile; }
+        public void setPercentile(double percentile) { this.percentile = percentile; }
+
+        public int getMinSamples() { return minSamples; }
+        public void setMinSamples(int minSamples) { this.minSamples = minSamples; }
+
+        public int getWindowSize() { return windowSize; }
+        public void setWindowSize(int windowSize) { this.windowSize = windowSize; }
+
+        public Duration getMinDelay() { return minDelay; }
+        public void setMinDelay(Duration minDelay) { this.minDelay = minDelay; }
+
+        public Duration getMaxDelay() { return maxDelay; }
+        public void setMaxDelay(Duration maxDelay) { this.maxDelay = maxDelay; }
+    }
+
+    public Map<RequestClass, Duration> getDeadlines() { return deadlines; }
+    public void setDeadlines(Map<RequestClass, Duration> deadlines) { this.deadlines.putAll(deadlines); }
+
+    public Hedge getHedge() { return hedge; }
+}
@@ -0,0 +1,36 @@
+package org.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 流式输出的token合并配置（ollama.stream.coalescing.*）
+ *
+ * 第一个token立即发送以保证首字延迟，之后的token攒满maxChars个字符或距上次发送超过maxDelay时
+ * 合并为一个SSE帧发送，减少写入和flush次数。
+ */
+@ConfigurationProperties(prefix = "ollama.stream.coalescing")
+public class StreamCoalescingProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 合并等待的最长时间
+     */
+    private Duration maxDelay = Duration.ofMillis(50);
+
+    /**
+     * 攒够多少个字符立即发送
+     */
+    private int maxChars = 256;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Duration getMaxDelay() { return maxDelay; }
+    public void setMaxDelay(Duration maxDelay) { this.maxDelay = maxDelay; }
+
+    public int getMaxChars() { return maxChars; }
+    public void setMaxChars(int maxChars) { this.maxChars = maxChars; }
+}
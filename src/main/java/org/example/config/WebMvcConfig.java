@@ -0,0 +1,24 @@
+package org.example.config;
+
+import org.example.controller.LlmCacheBypassInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC配置：注册拦截器
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final LlmCacheBypassInterceptor llmCacheBypassInterceptor;
+
+    public WebMvcConfig(LlmCacheBypassInterceptor llmCacheBypassInterceptor) {
+        this.llmCacheBypassInterceptor = llmCacheBypassInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(llmCacheBypassInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -1,7 +1,9 @@
 package org.example.controller;
 
 import org.example.service.OllamaService;
+import org.example.service.SseFrameEncoder;
 import org.example.service.AiService;
+import org.example.service.TenderTextNormalizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
@@ -21,6 +23,9 @@ public class AdvancedAiController {
     @Autowired
     private AiService aiService;
 
+    @Autowired
+    private TenderTextNormalizer normalizer;
+
     /**
      * 基础聊天 - 流式输出
      */
@@ -29,18 +34,12 @@ public class AdvancedAiController {
         String message = request.get("message");
         
         if (message == null || message.trim().isEmpty()) {
-            return Flux.just("data: {\"type\":\"error\",\"message\":\"消息不能为空\"}\n\n");
+            return Flux.just(SseFrameEncoder.error("消息不能为空"));
         }
         
-        return Flux.create(sink -> {
-            try {
-                sink.next("data: {\"type\":\"start\",\"message\":\"" + escapeJsonString(message) + "\"}\n\n");
-                ollamaService.streamChat(message, sink);
-            } catch (Exception e) {
-                sink.next("data: {\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}\n\n");
-                sink.complete();
-            }
-        });
+        // 直接返回上游的流，客户端断开时取消会一直传递到Ollama请求
+        return ollamaService.streamChat(message)
+                .startWith(SseFrameEncoder.frame("start", "message", message));
     }
 
     /**
@@ -52,18 +51,12 @@ public class AdvancedAiController {
         String systemPrompt = request.get("systemPrompt");
         
         if (userMessage == null || userMessage.trim().isEmpty()) {
-            return Flux.just("data: {\"type\":\"error\",\"message\":\"用户消息不能为空\"}\n\n");
+            return Flux.just(SseFrameEncoder.error("用户消息不能为空"));
         }
         
-        return Flux.create(sink -> {
-            try {
-                sink.next("data: {\"type\":\"start\",\"userMessage\":\"" + escapeJsonString(userMessage) + "\",\"systemPrompt\":\"" + escapeJsonString(systemPrompt) + "\"}\n\n");
-                ollamaService.streamChatWithSystemPrompt(userMessage, systemPrompt, sink);
-            } catch (Exception e) {
-                sink.next("data: {\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}\n\n");
-                sink.complete();
-            }
-        });
+        // 直接返回上游的流，客户端断开时取消会一直传递到Ollama请求
+        return ollamaService.streamChatWithSystemPrompt(userMessage, systemPrompt)
+                .startWith(SseFrameEncoder.frame("start", "userMessage", userMessage, "systemPrompt", systemPrompt));
     }
 
     /**
@@ -75,7 +68,7 @@ public class AdvancedAiController {
         String style = request.get("style");
         
         if (topic == null || topic.trim().isEmpty()) {
-            return Flux.just("data: {\"type\":\"error\",\"message\":\"主题不能为空\"}\n\n");
+            return Flux.just(SseFrameEncoder.error("主题不能为空"));
         }
         
         String template = "请以" + style + "的风格，写一篇关于" + topic + "的文章。\n" +
@@ -84,15 +77,9 @@ public class AdvancedAiController {
                 "2. 字数控制在200字左右\n" +
                 "3. 结构清晰";
         
-        return Flux.create(sink -> {
-            try {
-                sink.next("data: {\"type\":\"start\",\"topic\":\"" + escapeJsonString(topic) + "\",\"style\":\"" + escapeJsonString(style) + "\"}\n\n");
-                ollamaService.streamChat(template, sink);
-            } catch (Exception e) {
-                sink.next("data: {\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}\n\n");
-                sink.complete();
-            }
-        });
+        // 直接返回上游的流，客户端断开时取消会一直传递到Ollama请求
+        return ollamaService.streamChat(template)
+                .startWith(SseFrameEncoder.frame("start", "topic", topic, "style", style));
     }
 
     /**
@@ -143,7 +130,7 @@ public class AdvancedAiController {
         String language = request.get("language");
         
         if (requirement == null || requirement.trim().isEmpty()) {
-            return Flux.just("data: {\"type\":\"error\",\"message\":\"需求描述不能为空\"}\n\n");
+            return Flux.just(SseFrameEncoder.error("需求描述不能为空"));
         }
         
         String systemPrompt = "你是一个专业的程序员，请根据用户的需求生成高质量的代码。\n" +
@@ -154,15 +141,9 @@ public class AdvancedAiController {
         
         String userPrompt = String.format("请用%s语言实现以下需求：%s", language, requirement);
         
-        return Flux.create(sink -> {
-            try {
-                sink.next("data: {\"type\":\"start\",\"requirement\":\"" + escapeJsonString(requirement) + "\",\"language\":\"" + escapeJsonString(language) + "\"}\n\n");
-                ollamaService.streamChatWithSystemPrompt(userPrompt, systemPrompt, sink);
-            } catch (Exception e) {
-                sink.next("data: {\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}\n\n");
-                sink.complete();
-            }
-        });
+        // 直接返回上游的流，客户端断开时取消会一直传递到Ollama请求
+        return ollamaService.streamChatWithSystemPrompt(userPrompt, systemPrompt)
+                .startWith(SseFrameEncoder.frame("start", "requirement", requirement, "language", language));
     }
 
     /**
@@ -173,7 +154,7 @@ public class AdvancedAiController {
         String content = request.get("content");
         
         if (content == null || content.trim().isEmpty()) {
-            return Flux.just("data: {\"type\":\"error\",\"message\":\"文档内容不能为空\"}\n\n");
+            return Flux.just(SseFrameEncoder.error("文档内容不能为空"));
         }
         
         String systemPrompt = "你是一个专业的文档摘要专家。\n" +
@@ -182,15 +163,14 @@ public class AdvancedAiController {
                 "2. 保持逻辑清晰\n" +
                 "3. 字数控制在原文的1/3以内";
         
-        return Flux.create(sink -> {
-            try {
-                sink.next("data: {\"type\":\"start\",\"content_length\":\"" + content.length() + "\"}\n\n");
-                ollamaService.streamChatWithSystemPrompt(content, systemPrompt, sink);
-            } catch (Exception e) {
-                sink.next("data: {\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}\n\n");
-                sink.complete();
-            }
-        });
+        // 流式响应没有Server-Timing响应头，精简去掉的字符和token数在start帧中返回
+        TenderTextNormalizer.Result normalized = normalizer.normalize(content);
+        
+        // 直接返回上游的流，客户端断开时取消会一直传递到Ollama请求
+        return ollamaService.streamChatWithSystemPrompt(normalized.getText(), systemPrompt)
+                .startWith(SseFrameEncoder.frame("start", "content_length", String.valueOf(content.length()),
+                        "removed_chars", String.valueOf(normalized.getRemovedChars()),
+                        "removed_tokens", String.valueOf(normalized.getRemovedTokens())));
     }
 
     /**
@@ -203,18 +183,4 @@ public class AdvancedAiController {
         result.put("features", "聊天,嵌入,图像生成,代码生成,文档摘要");
         return result;
     }
-    
-    /**
-     * 转义JSON字符串中的特殊字符
-     */
-    private String escapeJsonString(String input) {
-        if (input == null) {
-            return "";
-        }
-        return input.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
-    }
 } 
\ No newline at end of file
@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import org.example.service.OllamaService;
+import org.example.service.SseFrameEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
@@ -21,18 +22,11 @@ public class AiChatController {
         String message = request.get("message");
         
         if (message == null || message.trim().isEmpty()) {
-            return Flux.just("data: {\"type\":\"error\",\"message\":\"消息不能为空\"}\n\n");
+            return Flux.just(SseFrameEncoder.error("消息不能为空"));
         }
         
-        return Flux.create(sink -> {
-            try {
-                // 直接调用Ollama的流式API，不发送额外的开始标记
-                ollamaService.streamChat(message, sink);
-            } catch (Exception e) {
-                sink.next("data: {\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}\n\n");
-                sink.complete();
-            }
-        });
+        // 直接返回Ollama的流式结果，不发送额外的开始标记；客户端断开时上游生成随之取消
+        return ollamaService.streamChat(message);
     }
 
     @GetMapping("/health")
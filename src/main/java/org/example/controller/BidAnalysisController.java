@@ -1,13 +1,18 @@
 package org.example.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.service.BidAnalysisService;
+import org.example.service.DocumentStore;
+import org.example.service.SseFrameEncoder;
+import org.example.service.TenderIngestionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.io.IOException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -17,68 +22,132 @@ public class BidAnalysisController {
     @Autowired
     private BidAnalysisService bidAnalysisService;
 
+    @Autowired
+    private DocumentStore documentStore;
+
+    @Autowired
+    private TenderIngestionService tenderIngestionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * 智能解析招标文件
      */
     @PostMapping("/analyze")
-    public Map<String, Object> analyzeBidDocument(@RequestBody Map<String, String> request) {
-        String bidDocument = request.get("bidDocument");
+    public Mono<Map<String, Object>> analyzeBidDocument(@RequestBody Map<String, String> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(request.get("documentId"), request.get("bidDocument"));
         
-        if (bidDocument == null || bidDocument.trim().isEmpty()) {
+        if (document == null) {
             throw new IllegalArgumentException("招标文件内容不能为空");
         }
         
-        return bidAnalysisService.analyzeBidDocument(bidDocument);
+        return bidAnalysisService.analyzeBidDocument(document.getContent())
+                .map(result -> withDocumentId(result, document));
     }
 
     /**
      * 识别招标文件风险点
      */
     @PostMapping("/identify-risks")
-    public Map<String, Object> identifyRiskPoints(@RequestBody Map<String, String> request) {
-        String bidDocument = request.get("bidDocument");
+    public Mono<Map<String, Object>> identifyRiskPoints(@RequestBody Map<String, String> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(request.get("documentId"), request.get("bidDocument"));
         
-        if (bidDocument == null || bidDocument.trim().isEmpty()) {
+        if (document == null) {
             throw new IllegalArgumentException("招标文件内容不能为空");
         }
         
-        List<String> risks = bidAnalysisService.identifyRiskPoints(bidDocument);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("bidDocument", bidDocument);
-        result.put("risks", risks);
-        return result;
+        return bidAnalysisService.identifyRiskPoints(document.getContent())
+                .map(risks -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("documentId", document.getId());
+                    result.put("risks", risks);
+                    return result;
+                });
     }
 
     /**
      * 提取评分标准
      */
     @PostMapping("/extract-scoring-criteria")
-    public Map<String, Object> extractScoringCriteria(@RequestBody Map<String, String> request) {
-        String bidDocument = request.get("bidDocument");
+    public Mono<Map<String, Object>> extractScoringCriteria(@RequestBody Map<String, String> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(request.get("documentId"), request.get("bidDocument"));
         
-        if (bidDocument == null || bidDocument.trim().isEmpty()) {
+        if (document == null) {
             throw new IllegalArgumentException("招标文件内容不能为空");
         }
         
-        return bidAnalysisService.extractScoringCriteria(bidDocument);
+        return bidAnalysisService.extractScoringCriteria(document.getContent())
+                .map(result -> withDocumentId(result, document));
     }
 
     /**
-     * 文件上传解析（预留接口）
+     * 完整分析：智能解析、风险识别、评分标准提取并行执行，返回合并结果
+     */
+    @PostMapping("/full-analysis")
+    public Mono<Map<String, Object>> fullAnalysis(@RequestBody Map<String, String> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(request.get("documentId"), request.get("bidDocument"));
+        
+        if (document == null) {
+            throw new IllegalArgumentException("招标文件内容不能为空");
+        }
+        
+        return bidAnalysisService.analyzeBidDocumentFullyMerged(document.getContent())
+                .map(result -> withDocumentId(result, document));
+    }
+
+    /**
+     * 完整分析 - 流式输出，每部分完成后立即以 part 帧发出
+     */
+    @PostMapping("/full-analysis/stream")
+    public Flux<String> fullAnalysisStream(@RequestBody Map<String, String> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(request.get("documentId"), request.get("bidDocument"));
+        
+        if (document == null) {
+            return Flux.just(SseFrameEncoder.error("招标文件内容不能为空"));
+        }
+        
+        return bidAnalysisService.analyzeBidDocumentFully(document.getContent())
+                .map(part -> {
+                    try {
+                        return SseFrameEncoder.data(objectMapper.writeValueAsString(part));
+                    } catch (JsonProcessingException e) {
+                        return SseFrameEncoder.error("结果序列化失败: " + e.getOriginalMessage());
+                    }
+                })
+                .startWith(SseFrameEncoder.frame("start", "documentId", document.getId()))
+                .concatWith(Mono.fromSupplier(SseFrameEncoder::end));
+    }
+
+    /**
+     * 上传招标文件并解析，支持PDF、DOCX和文本文件（自动识别UTF-8、GBK等编码）
      */
     @PostMapping("/upload-and-analyze")
-    public Map<String, Object> uploadAndAnalyze(@RequestParam("file") MultipartFile file) {
+    public Mono<Map<String, Object>> uploadAndAnalyze(@RequestParam("file") MultipartFile file) {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("上传文件不能为空");
         }
         
-        try {
-            String content = new String(file.getBytes(), "UTF-8");
-            return bidAnalysisService.analyzeBidDocument(content);
-        } catch (IOException e) {
-            throw new RuntimeException("文件读取失败: " + e.getMessage());
-        }
+        return tenderIngestionService.ingest(file)
+                .flatMap(upload -> {
+                    DocumentStore.StoredDocument document = documentStore.resolve(null, upload.getContent());
+                    if (document == null) {
+                        return Mono.error(new IllegalArgumentException("上传文件不能为空"));
+                    }
+                    return bidAnalysisService.analyzeBidDocument(document.getContent())
+                            .map(result -> {
+                                result.putAll(upload.describe());
+                                return withDocumentId(result, document);
+                            });
+                });
+    }
+
+    /**
+     * 结果中以 documentId 引用招标文件，不回传全文
+     */
+    private static Map<String, Object> withDocumentId(Map<String, Object> result, DocumentStore.StoredDocument document) {
+        result.put("documentId", document.getId());
+        return result;
     }
 
     /**
@@ -88,7 +157,7 @@ public class BidAnalysisController {
     public Map<String, String> health() {
         Map<String, String> result = new HashMap<>();
         result.put("status", "招标文件分析服务正常运行");
-        result.put("features", "智能解析,风险识别,评分标准提取");
+        result.put("features", "智能解析,风险识别,评分标准提取,完整分析");
         return result;
     }
 }
\ No newline at end of file
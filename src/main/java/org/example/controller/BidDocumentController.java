@@ -1,11 +1,12 @@
 package org.example.controller;
 
 import org.example.service.BidDocumentService;
+import org.example.service.DocumentStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -15,11 +16,14 @@ public class BidDocumentController {
     @Autowired
     private BidDocumentService bidDocumentService;
 
+    @Autowired
+    private DocumentStore documentStore;
+
     /**
      * 生成主标书
      */
     @PostMapping("/generate-main")
-    public Map<String, String> generateMainBidDocument(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, String>> generateMainBidDocument(@RequestBody Map<String, String> request) {
         String projectInfo = request.get("projectInfo");
         String requirements = request.get("requirements");
         
@@ -31,20 +35,23 @@ public class BidDocumentController {
             throw new IllegalArgumentException("标书要求不能为空");
         }
         
-        String bidDocument = bidDocumentService.generateMainBidDocument(projectInfo, requirements);
-        
-        Map<String, String> result = new HashMap<>();
-        result.put("projectInfo", projectInfo);
-        result.put("requirements", requirements);
-        result.put("bidDocument", bidDocument);
-        return result;
+        return bidDocumentService.generateMainBidDocument(projectInfo, requirements)
+                .map(bidDocument -> {
+                    Map<String, String> result = new HashMap<>();
+                    result.put("projectInfo", projectInfo);
+                    result.put("requirements", requirements);
+                    result.put("bidDocument", bidDocument);
+                    // 导出、评估时可传 documentId 代替全文
+                    result.put("documentId", documentStore.put(bidDocument));
+                    return result;
+                });
     }
 
     /**
      * 生成陪标书
      */
     @PostMapping("/generate-secondary")
-    public Map<String, String> generateSecondaryBidDocument(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, String>> generateSecondaryBidDocument(@RequestBody Map<String, String> request) {
         String projectInfo = request.get("projectInfo");
         String requirements = request.get("requirements");
         
@@ -56,20 +63,23 @@ public class BidDocumentController {
             throw new IllegalArgumentException("标书要求不能为空");
         }
         
-        String bidDocument = bidDocumentService.generateSecondaryBidDocument(projectInfo, requirements);
-        
-        Map<String, String> result = new HashMap<>();
-        result.put("projectInfo", projectInfo);
-        result.put("requirements", requirements);
-        result.put("bidDocument", bidDocument);
-        return result;
+        return bidDocumentService.generateSecondaryBidDocument(projectInfo, requirements)
+                .map(bidDocument -> {
+                    Map<String, String> result = new HashMap<>();
+                    result.put("projectInfo", projectInfo);
+                    result.put("requirements", requirements);
+                    result.put("bidDocument", bidDocument);
+                    // 导出、评估时可传 documentId 代替全文
+                    result.put("documentId", documentStore.put(bidDocument));
+                    return result;
+                });
     }
 
     /**
      * 生成多份陪标书
      */
     @PostMapping("/generate-multiple-secondary")
-    public Map<String, Object> generateMultipleSecondaryBidDocuments(@RequestBody Map<String, Object> request) {
+    public Mono<Map<String, Object>> generateMultipleSecondaryBidDocuments(@RequestBody Map<String, Object> request) {
         String projectInfo = (String) request.get("projectInfo");
         String requirements = (String) request.get("requirements");
         Integer count = (Integer) request.get("count");
@@ -86,33 +96,35 @@ public class BidDocumentController {
             throw new IllegalArgumentException("生成数量必须大于0");
         }
         
-        List<String> bidDocuments = bidDocumentService.generateMultipleSecondaryBidDocuments(projectInfo, requirements, count);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("projectInfo", projectInfo);
-        result.put("requirements", requirements);
-        result.put("count", count);
-        result.put("bidDocuments", bidDocuments);
-        return result;
+        return bidDocumentService.generateMultipleSecondaryBidDocuments(projectInfo, requirements, count)
+                .map(bidDocuments -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("projectInfo", projectInfo);
+                    result.put("requirements", requirements);
+                    result.put("count", count);
+                    result.put("bidDocuments", bidDocuments);
+                    return result;
+                });
     }
 
     /**
      * 评估标书质量
      */
     @PostMapping("/evaluate")
-    public Map<String, String> evaluateBidDocument(@RequestBody Map<String, String> request) {
-        String bidDocument = request.get("bidDocument");
+    public Mono<Map<String, String>> evaluateBidDocument(@RequestBody Map<String, String> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(request.get("documentId"), request.get("bidDocument"));
         
-        if (bidDocument == null || bidDocument.trim().isEmpty()) {
+        if (document == null) {
             throw new IllegalArgumentException("标书内容不能为空");
         }
         
-        String evaluation = bidDocumentService.evaluateBidDocument(bidDocument);
-        
-        Map<String, String> result = new HashMap<>();
-        result.put("bidDocument", bidDocument);
-        result.put("evaluation", evaluation);
-        return result;
+        return bidDocumentService.evaluateBidDocument(document.getContent())
+                .map(evaluation -> {
+                    Map<String, String> result = new HashMap<>();
+                    result.put("documentId", document.getId());
+                    result.put("evaluation", evaluation);
+                    return result;
+                });
     }
 
     /**
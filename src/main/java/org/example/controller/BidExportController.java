@@ -1,6 +1,7 @@
 package org.example.controller;
 
 import org.example.service.BidExportService;
+import org.example.service.DocumentStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -22,12 +23,18 @@ public class BidExportController {
     @Autowired
     private BidExportService bidExportService;
 
+    @Autowired
+    private DocumentStore documentStore;
+
     /**
      * 导出标书为指定格式
      */
     @PostMapping("/export")
     public ResponseEntity<?> exportBidDocument(@RequestBody Map<String, String> request) {
-        String bidDocument = request.get("bidDocument");
+        String documentId = request.get("documentId");
+        String bidDocument = documentId == null || documentId.trim().isEmpty()
+                ? request.get("bidDocument")
+                : documentStore.get(documentId.trim());
         String format = request.get("format");
         String templateStyle = request.get("templateStyle");
         String fileName = request.get("fileName");
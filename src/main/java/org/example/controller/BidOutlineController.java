@@ -1,8 +1,10 @@
 package org.example.controller;
 
 import org.example.service.BidOutlineService;
+import org.example.service.DocumentStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -14,27 +16,35 @@ public class BidOutlineController {
     @Autowired
     private BidOutlineService bidOutlineService;
 
+    @Autowired
+    private DocumentStore documentStore;
+
     /**
      * 生成标书目录
      */
     @PostMapping("/generate")
-    public Map<String, Object> generateBidOutline(@RequestBody Map<String, Object> request) {
-        String bidDocument = (String) request.get("bidDocument");
+    public Mono<Map<String, Object>> generateBidOutline(@RequestBody Map<String, Object> request) {
+        DocumentStore.StoredDocument document = documentStore.resolve(
+                (String) request.get("documentId"), (String) request.get("bidDocument"));
         @SuppressWarnings("unchecked")
         Map<String, Object> analysisResult = (Map<String, Object>) request.get("analysisResult");
         
-        if (bidDocument == null || bidDocument.trim().isEmpty()) {
+        if (document == null) {
             throw new IllegalArgumentException("招标文件内容不能为空");
         }
         
-        return bidOutlineService.generateBidOutline(bidDocument, analysisResult);
+        return bidOutlineService.generateBidOutline(document.getContent(), analysisResult)
+                .map(result -> {
+                    result.put("documentId", document.getId());
+                    return result;
+                });
     }
 
     /**
      * 生成技术标目录
      */
     @PostMapping("/generate-technical")
-    public Map<String, Object> generateTechnicalOutline(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> generateTechnicalOutline(@RequestBody Map<String, String> request) {
         String technicalRequirements = request.get("technicalRequirements");
         
         if (technicalRequirements == null || technicalRequirements.trim().isEmpty()) {
@@ -48,7 +58,7 @@ public class BidOutlineController {
      * 生成商务标目录
      */
     @PostMapping("/generate-commercial")
-    public Map<String, Object> generateCommercialOutline(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> generateCommercialOutline(@RequestBody Map<String, String> request) {
         String commercialRequirements = request.get("commercialRequirements");
         
         if (commercialRequirements == null || commercialRequirements.trim().isEmpty()) {
@@ -62,7 +72,7 @@ public class BidOutlineController {
      * 自定义目录结构调整
      */
     @PostMapping("/customize")
-    public Map<String, Object> customizeOutline(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> customizeOutline(@RequestBody Map<String, String> request) {
         String currentOutline = request.get("currentOutline");
         String modifications = request.get("modifications");
         
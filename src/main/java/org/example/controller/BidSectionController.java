@@ -1,10 +1,14 @@
 package org.example.controller;
 
+import org.example.service.BidAnalysisService;
 import org.example.service.BidSectionService;
+import org.example.service.DocumentStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -14,15 +18,22 @@ public class BidSectionController {
     @Autowired
     private BidSectionService bidSectionService;
 
+    @Autowired
+    private BidAnalysisService bidAnalysisService;
+
+    @Autowired
+    private DocumentStore documentStore;
+
     /**
      * 生成章节内容
      */
     @PostMapping("/generate")
-    public Map<String, Object> generateSectionContent(@RequestBody Map<String, Object> request) {
+    public Mono<Map<String, Object>> generateSectionContent(@RequestBody Map<String, Object> request) {
         String sectionTitle = (String) request.get("sectionTitle");
         String sectionRequirements = (String) request.get("sectionRequirements");
         @SuppressWarnings("unchecked")
         Map<String, Object> bidContext = (Map<String, Object>) request.get("bidContext");
+        String documentId = (String) request.get("documentId");
         
         if (sectionTitle == null || sectionTitle.trim().isEmpty()) {
             throw new IllegalArgumentException("章节标题不能为空");
@@ -32,6 +43,15 @@ public class BidSectionController {
             throw new IllegalArgumentException("章节要求不能为空");
         }
         
+        if (documentId != null && !documentId.trim().isEmpty()) {
+            // 只把招标文件的关键信息作为上下文，不发送全文
+            Map<String, Object> context = new LinkedHashMap<>(bidAnalysisService.extractKeyInformation(documentStore.get(documentId.trim())));
+            if (bidContext != null) {
+                context.putAll(bidContext);
+            }
+            bidContext = context;
+        }
+        
         return bidSectionService.generateSectionContent(sectionTitle, sectionRequirements, bidContext);
     }
 
@@ -39,7 +59,7 @@ public class BidSectionController {
      * 生成技术方案章节
      */
     @PostMapping("/generate-technical-solution")
-    public Map<String, Object> generateTechnicalSolution(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> generateTechnicalSolution(@RequestBody Map<String, String> request) {
         String technicalRequirements = request.get("technicalRequirements");
         String projectInfo = request.get("projectInfo");
         
@@ -58,7 +78,7 @@ public class BidSectionController {
      * 生成项目管理章节
      */
     @PostMapping("/generate-project-management")
-    public Map<String, Object> generateProjectManagement(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> generateProjectManagement(@RequestBody Map<String, String> request) {
         String projectInfo = request.get("projectInfo");
         String managementRequirements = request.get("managementRequirements");
         
@@ -77,7 +97,7 @@ public class BidSectionController {
      * 生成质量保证章节
      */
     @PostMapping("/generate-quality-assurance")
-    public Map<String, Object> generateQualityAssurance(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> generateQualityAssurance(@RequestBody Map<String, String> request) {
         String qualityRequirements = request.get("qualityRequirements");
         String projectInfo = request.get("projectInfo");
         
@@ -96,7 +116,7 @@ public class BidSectionController {
      * 生成售后服务章节
      */
     @PostMapping("/generate-after-sales-service")
-    public Map<String, Object> generateAfterSalesService(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> generateAfterSalesService(@RequestBody Map<String, String> request) {
         String serviceRequirements = request.get("serviceRequirements");
         String projectInfo = request.get("projectInfo");
         
@@ -115,7 +135,7 @@ public class BidSectionController {
      * 优化章节内容
      */
     @PostMapping("/optimize")
-    public Map<String, Object> optimizeSectionContent(@RequestBody Map<String, String> request) {
+    public Mono<Map<String, Object>> optimizeSectionContent(@RequestBody Map<String, String> request) {
         String currentContent = request.get("currentContent");
         String optimizationRequirements = request.get("optimizationRequirements");
         
@@ -0,0 +1,91 @@
+package org.example.controller;
+
+import org.example.service.DocumentStore;
+import org.example.service.TenderIngestionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文档上传与读取：上传一次得到 documentId，之后各接口传 documentId 代替全文
+ */
+@RestController
+@RequestMapping("/api/documents")
+public class DocumentController {
+
+    @Autowired
+    private DocumentStore documentStore;
+
+    @Autowired
+    private TenderIngestionService tenderIngestionService;
+
+    /**
+     * 存储文档内容
+     */
+    @PostMapping
+    public Map<String, Object> store(@RequestBody Map<String, String> request) {
+        String content = request.get("content");
+
+        if (content == null || content.trim().isEmpty()) {
+            throw new IllegalArgumentException("文档内容不能为空");
+        }
+
+        return describe(documentStore.put(content), content);
+    }
+
+    /**
+     * 上传文档文件，支持PDF、DOCX和文本文件
+     */
+    @PostMapping("/upload")
+    public Mono<Map<String, Object>> upload(@RequestParam("file") MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("上传文件不能为空");
+        }
+
+        return tenderIngestionService.ingest(file)
+                .map(upload -> {
+                    String content = upload.getContent();
+                    if (content.trim().isEmpty()) {
+                        throw new IllegalArgumentException("上传文件不能为空");
+                    }
+
+                    Map<String, Object> result = describe(documentStore.put(content), content);
+                    result.put("fileName", file.getOriginalFilename());
+                    result.putAll(upload.describe());
+                    return result;
+                });
+    }
+
+    /**
+     * 读取文档内容
+     */
+    @GetMapping("/{documentId}")
+    public Map<String, Object> get(@PathVariable String documentId) {
+        String content = documentStore.get(documentId);
+        Map<String, Object> result = describe(documentId, content);
+        result.put("content", content);
+        return result;
+    }
+
+    /**
+     * 删除文档
+     */
+    @DeleteMapping("/{documentId}")
+    public Map<String, Object> delete(@PathVariable String documentId) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("documentId", documentId);
+        result.put("deleted", documentStore.delete(documentId));
+        return result;
+    }
+
+    private static Map<String, Object> describe(String documentId, String content) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("documentId", documentId);
+        result.put("length", content.length());
+        return result;
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.controller;
+
+import org.example.service.ConcurrencyLimitExceededException;
+import org.example.service.DocumentNotFoundException;
+import org.example.service.DocumentTooLargeException;
+import org.example.service.GenerationTimeoutException;
+import org.example.service.NoAvailableBackendException;
+import org.example.service.UnsupportedDocumentException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 生成类接口的统一异常处理
+ */
+@RestControllerAdvice
+public class GenerationExceptionHandler {
+
+    /**
+     * 并发已满：返回429并告知客户端何时重试
+     */
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleConcurrencyLimitExceeded(ConcurrencyLimitExceededException e) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("error", "TOO_MANY_REQUESTS");
+        result.put("message", e.getMessage());
+        result.put("retryAfterSeconds", e.getRetryAfterSeconds());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(result);
+    }
+
+    /**
+     * 所有Ollama节点都不可用（健康检查失败或已熔断）
+     */
+    @ExceptionHandler(NoAvailableBackendException.class)
+    public ResponseEntity<Map<String, Object>> handleNoAvailableBackend(NoAvailableBackendException e) {
+        return error(HttpStatus.SERVICE_UNAVAILABLE, "SERVICE_UNAVAILABLE", e.getMessage());
+    }
+
+    /**
+     * 生成超过截止时间
+     */
+    @ExceptionHandler(GenerationTimeoutException.class)
+    public ResponseEntity<Map<String, Object>> handleGenerationTimeout(GenerationTimeoutException e) {
+        return error(HttpStatus.GATEWAY_TIMEOUT, "GATEWAY_TIMEOUT", e.getMessage());
+    }
+
+    /**
+     * Ollama连接失败或返回错误
+     */
+    @ExceptionHandler({WebClientRequestException.class, WebClientResponseException.class})
+    public ResponseEntity<Map<String, Object>> handleOllamaError(RuntimeException e) {
+        return error(HttpStatus.BAD_GATEWAY, "BAD_GATEWAY", "AI服务调用失败: " + e.getMessage());
+    }
+
+    /**
+     * 文档ID不存在或文档已过期
+     */
+    @ExceptionHandler(DocumentNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleDocumentNotFound(DocumentNotFoundException e) {
+        return error(HttpStatus.NOT_FOUND, "NOT_FOUND", e.getMessage());
+    }
+
+    /**
+     * 上传文件或解码后的文本超过上限
+     */
+    @ExceptionHandler(DocumentTooLargeException.class)
+    public ResponseEntity<Map<String, Object>> handleDocumentTooLarge(DocumentTooLargeException e) {
+        return error(HttpStatus.PAYLOAD_TOO_LARGE, "PAYLOAD_TOO_LARGE", e.getMessage());
+    }
+
+    /**
+     * 上传文件无法提取文字
+     */
+    @ExceptionHandler(UnsupportedDocumentException.class)
+    public ResponseEntity<Map<String, Object>> handleUnsupportedDocument(UnsupportedDocumentException e) {
+        return error(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "UNSUPPORTED_MEDIA_TYPE", e.getMessage());
+    }
+
+    /**
+     * 上传请求超过 spring.servlet.multipart 的大小上限，在进入控制器前被拒绝
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException e) {
+        return error(HttpStatus.PAYLOAD_TOO_LARGE, "PAYLOAD_TOO_LARGE", "上传文件超过大小上限");
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String error, String message) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("error", error);
+        result.put("message", message);
+        return ResponseEntity.status(status).body(result);
+    }
+}
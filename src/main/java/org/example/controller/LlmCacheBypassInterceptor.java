@@ -0,0 +1,33 @@
+package org.example.controller;
+
+import org.example.config.LlmCacheProperties;
+import org.example.service.LlmRequestContext;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * 请求头 ollama.cache.bypass-header 的值为 bypass 或 no-cache 时，在请求属性中标记跳过LLM响应缓存
+ *
+ * 标记由 {@link LlmRequestContext#bindCurrent()} 带入Reactor上下文，缓存本身不读取请求。
+ */
+@Component
+public class LlmCacheBypassInterceptor implements HandlerInterceptor {
+
+    private final LlmCacheProperties properties;
+
+    public LlmCacheBypassInterceptor(LlmCacheProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String value = request.getHeader(properties.getBypassHeader());
+        if (value != null && ("bypass".equalsIgnoreCase(value) || "no-cache".equalsIgnoreCase(value))) {
+            request.setAttribute(LlmRequestContext.CACHE_BYPASS, Boolean.TRUE);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.controller;
+
+import org.example.service.LlmTiming;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.util.Map;
+
+/**
+ * 为调用过LLM的请求输出耗时：Server-Timing 响应头，以及JSON对象结果中的timing字段
+ */
+@RestControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return body;
+        }
+        Object attribute = ((ServletServerHttpRequest) request).getServletRequest().getAttribute(LlmTiming.ATTRIBUTE);
+        if (!(attribute instanceof LlmTiming)) {
+            return body;
+        }
+        LlmTiming timing = (LlmTiming) attribute;
+        response.getHeaders().add("Server-Timing", timing.toServerTiming());
+        if (body instanceof Map && !((Map<?, ?>) body).containsKey("timing")) {
+            try {
+                ((Map<String, Object>) body).put("timing", timing.toMap());
+            } catch (UnsupportedOperationException ignored) {
+                // 不可变的结果只输出响应头
+            }
+        }
+        return body;
+    }
+}
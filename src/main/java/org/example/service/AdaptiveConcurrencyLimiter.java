@@ -0,0 +1,345 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.config.ConcurrencyLimiterProperties;
+import org.example.config.GenerationSchedulerProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 发往Ollama的自适应并发限制
+ *
+ * 采用梯度算法：按类别维护单位成本延迟（调用耗时/预估token成本）的长期基线，当一次调用的单位成本延迟
+ * 相对同类别基线膨胀超过tolerance倍时收缩并发上限，否则缓慢增长；长任务和流式调用耗时长是因为输出多，
+ * 不会被误判为过载。调用失败时按backoffRatio乘性收缩。超出上限的请求进入有界的加权公平队列，
+ * 按类别权重和预估token成本出队，短的交互请求不会被排在长任务之后；长任务最多占用
+ * bulkMaxShare的并发份额。队列满或等待超时抛出 {@link ConcurrencyLimitExceededException}。
+ */
+@Service
+public class AdaptiveConcurrencyLimiter {
+
+    /**
+     * 长期基线的指数平均系数
+     */
+    private static final double LONG_RTT_ALPHA = 0.05;
+
+    private final ConcurrencyLimiterProperties properties;
+
+    private final GenerationSchedulerProperties schedulerProperties;
+
+    private final WeightedFairQueue<Waiter> queue;
+
+    private final Map<RequestClass, Timer> queueWaitTimers = new EnumMap<>(RequestClass.class);
+
+    private final Counter rejectedCounter;
+
+    private double limit;
+
+    private int inFlight;
+
+    private final int[] inFlightByClass = new int[RequestClass.values().length];
+
+    /**
+     * 各类别单位成本延迟（纳秒/token）的长期基线，0表示尚无样本
+     */
+    private final double[] longRttPerCost = new double[RequestClass.values().length];
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimiterProperties properties,
+                                      GenerationSchedulerProperties schedulerProperties,
+                                      MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.schedulerProperties = schedulerProperties;
+        this.queue = new WeightedFairQueue<>(schedulerProperties::weightOf);
+        this.limit = properties.getInitialLimit();
+
+        Gauge.builder("ollama.limiter.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("当前并发上限")
+                .register(meterRegistry);
+        Gauge.builder("ollama.limiter.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("正在执行的生成请求数")
+                .register(meterRegistry);
+        for (RequestClass requestClass : RequestClass.values()) {
+            String tag = requestClass.name().toLowerCase();
+            Gauge.builder("ollama.limiter.queue.size", this, limiter -> limiter.getQueueSize(requestClass))
+                    .description("等待并发许可的请求数")
+                    .tag("class", tag)
+                    .register(meterRegistry);
+            queueWaitTimers.put(requestClass, Timer.builder("ollama.limiter.queue.wait")
+                    .description("等待并发许可的时间")
+                    .tag("class", tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.rejectedCounter = Counter.builder("ollama.limiter.rejected")
+                .description("因队列满或排队超时被拒绝的请求数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 在并发许可内执行一次调用，调用结束（含取消）后归还许可
+     *
+     * @param requestClass 调度类别
+     * @param cost 预估成本（输入+输出token数）
+     * @param call 实际调用
+     */
+    public <T> Mono<T> execute(RequestClass requestClass, long cost, Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(call);
+        }
+        return Mono.usingWhen(acquire(requestClass, cost),
+                permit -> call.get(),
+                permit -> release(permit, Outcome.SUCCESS),
+                (permit, error) -> release(permit, outcomeOf(error)),
+                permit -> release(permit, Outcome.CANCELLED));
+    }
+
+    /**
+     * 在并发许可内执行一次流式调用，许可一直持有到流结束
+     */
+    public <T> Flux<T> executeMany(RequestClass requestClass, long cost, Supplier<Flux<T>> call) {
+        if (!properties.isEnabled()) {
+            return Flux.defer(call);
+        }
+        return Flux.usingWhen(acquire(requestClass, cost),
+                permit -> call.get(),
+                permit -> release(permit, Outcome.SUCCESS),
+                (permit, error) -> release(permit, outcomeOf(error)),
+                permit -> release(permit, Outcome.CANCELLED));
+    }
+
+    public synchronized double getLimit() {
+        return limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    public synchronized int getQueueSize(RequestClass requestClass) {
+        return queue.size(requestClass);
+    }
+
+    /**
+     * 未指定类别时按输入规模归类：超长输入按长任务调度
+     */
+    public RequestClass classify(RequestClass requested, int promptTokens) {
+        if (requested != null) {
+            return requested;
+        }
+        return promptTokens > schedulerProperties.getBulkPromptTokens() ? RequestClass.BULK : RequestClass.SECTION;
+    }
+
+    /**
+     * 预估一次请求的成本：输入token数 + 该类别预估的输出token数
+     */
+    public long estimateCost(RequestClass requestClass, int promptTokens) {
+        return (long) promptTokens + schedulerProperties.expectedOutputTokensOf(requestClass);
+    }
+
+    private Mono<Permit> acquire(RequestClass requestClass, long cost) {
+        Mono<Permit> permit = Mono.create(sink -> {
+            long now = System.nanoTime();
+            Waiter waiter;
+            synchronized (this) {
+                if (canDispatch(requestClass) && queue.size(requestClass) == 0) {
+                    take(requestClass);
+                    waiter = null;
+                } else if (queue.size() >= properties.getMaxQueueSize()) {
+                    rejectedCounter.increment();
+                    sink.error(rejected("生成请求过多，请稍后重试"));
+                    return;
+                } else {
+                    waiter = new Waiter(sink, requestClass, cost, now);
+                    waiter.entry = queue.offer(waiter, requestClass, cost);
+                }
+            }
+
+            if (waiter == null) {
+                queueWaitTimers.get(requestClass).record(0, TimeUnit.NANOSECONDS);
+                sink.success(new Permit(requestClass, cost, now, 0));
+                return;
+            }
+
+            sink.onCancel(() -> {
+                boolean granted;
+                synchronized (this) {
+                    granted = waiter.granted;
+                    if (!granted) {
+                        queue.remove(waiter.entry);
+                    }
+                }
+                // 许可已分配但订阅者已离开，直接归还
+                if (granted) {
+                    release(waiter.permit, Outcome.CANCELLED).subscribe();
+                }
+            });
+        });
+
+        return permit
+                .timeout(properties.getMaxQueueWait())
+                .onErrorMap(TimeoutException.class, e -> {
+                    rejectedCounter.increment();
+                    return rejected("排队等待超时，请稍后重试");
+                });
+    }
+
+    private Mono<Void> release(Permit permit, Outcome outcome) {
+        return Mono.fromRunnable(() -> {
+            long rtt = System.nanoTime() - permit.startNanos;
+            List<Waiter> granted = new ArrayList<>();
+            synchronized (this) {
+                inFlight--;
+                inFlightByClass[permit.requestClass.ordinal()]--;
+                adjustLimit(permit, rtt, outcome);
+                Waiter waiter;
+                while (inFlight < (int) limit && (waiter = queue.poll(this::canDispatch)) != null) {
+                    long now = System.nanoTime();
+                    waiter.granted = true;
+                    waiter.permit = new Permit(waiter.requestClass, waiter.cost, now, now - waiter.enqueuedNanos);
+                    take(waiter.requestClass);
+                    granted.add(waiter);
+                }
+            }
+            // 在锁外唤醒等待者，避免在锁内执行下游的订阅逻辑
+            for (Waiter waiter : granted) {
+                queueWaitTimers.get(waiter.requestClass).record(waiter.permit.queueWaitNanos, TimeUnit.NANOSECONDS);
+                waiter.sink.success(waiter.permit);
+            }
+        });
+    }
+
+    /**
+     * 该类别当前能否获得许可，调用方需持有锁
+     */
+    private boolean canDispatch(RequestClass requestClass) {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        if (requestClass == RequestClass.BULK) {
+            int bulkLimit = Math.max(1, (int) (limit * schedulerProperties.getBulkMaxShare()));
+            return inFlightByClass[RequestClass.BULK.ordinal()] < bulkLimit;
+        }
+        return true;
+    }
+
+    private void take(RequestClass requestClass) {
+        inFlight++;
+        inFlightByClass[requestClass.ordinal()]++;
+    }
+
+    /**
+     * 根据一次调用的结果调整并发上限，调用方需持有锁
+     */
+    private void adjustLimit(Permit permit, long rttNanos, Outcome outcome) {
+        if (outcome == Outcome.CANCELLED || outcome == Outcome.IGNORED) {
+            return;
+        }
+        if (outcome == Outcome.DROPPED) {
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            return;
+        }
+
+        // 按预估成本归一化，并且只与同类别的基线比较
+        double rttPerCost = (double) rttNanos / Math.max(1, permit.cost);
+        int index = permit.requestClass.ordinal();
+        if (longRttPerCost[index] == 0) {
+            longRttPerCost[index] = rttPerCost;
+            return;
+        }
+        double baseline = longRttPerCost[index] * (1 - LONG_RTT_ALPHA) + rttPerCost * LONG_RTT_ALPHA;
+        longRttPerCost[index] = baseline;
+
+        // 实际并发远低于上限时，延迟信息不能说明上限是否合适
+        if (inFlight + 1 < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * baseline / rttPerCost));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+
+    private ConcurrencyLimitExceededException rejected(String message) {
+        return new ConcurrencyLimitExceededException(message, properties.getRetryAfter().getSeconds());
+    }
+
+    private static Outcome outcomeOf(Throwable error) {
+        // 4xx说明请求本身有问题，不代表Ollama过载
+        if (error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getStatusCode().is4xxClientError()) {
+            return Outcome.IGNORED;
+        }
+        return Outcome.DROPPED;
+    }
+
+    private enum Outcome {
+        SUCCESS, DROPPED, IGNORED, CANCELLED
+    }
+
+    /**
+     * 并发许可
+     */
+    static final class Permit {
+
+        final RequestClass requestClass;
+
+        /**
+         * 预估成本（输入+输出token数）
+         */
+        final long cost;
+
+        final long startNanos;
+
+        final long queueWaitNanos;
+
+        Permit(RequestClass requestClass, long cost, long startNanos, long queueWaitNanos) {
+            this.requestClass = requestClass;
+            this.cost = cost;
+            this.startNanos = startNanos;
+            this.queueWaitNanos = queueWaitNanos;
+        }
+    }
+
+    private static final class Waiter {
+
+        final MonoSink<Permit> sink;
+
+        final RequestClass requestClass;
+
+        final long cost;
+
+        final long enqueuedNanos;
+
+        WeightedFairQueue.Entry<Waiter> entry;
+
+        boolean granted;
+
+        Permit permit;
+
+        Waiter(MonoSink<Permit> sink, RequestClass requestClass, long cost, long enqueuedNanos) {
+            this.sink = sink;
+            this.requestClass = requestClass;
+            this.cost = cost;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
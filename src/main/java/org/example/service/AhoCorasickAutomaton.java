@@ -0,0 +1,168 @@
+package org.example.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * 多模式字符串匹配（Aho-Corasick），一次扫描找出所有关键词的全部出现位置
+ *
+ * 构建后不可变、线程安全。每个状态的转移按字符排序后二分查找，适合中文这类字母表很大但关键词很少的场景。
+ */
+final class AhoCorasickAutomaton {
+
+    /**
+     * 匹配回调
+     */
+    interface MatchHandler {
+
+        /**
+         * @param pattern 关键词在构造参数中的下标
+         * @param start 关键词在文本中的起始位置
+         * @param end 关键词在文本中的结束位置（不含）
+         * @return false时停止扫描
+         */
+        boolean onMatch(int pattern, int start, int end);
+    }
+
+    private static final int[] NO_OUTPUT = new int[0];
+
+    private final int[] patternLengths;
+
+    private final char[][] keys;
+
+    private final int[][] targets;
+
+    /**
+     * 根状态的转移表，按字符直接索引；扫描时绝大多数字符停留在根状态，避免每个字符都做二分查找
+     *
+     * 长度为关键词首字符的最大值加1，超出表长的字符没有转移。中文关键词的首字符在 U+4E00 之后，
+     * 表约占160KB；自动机只为少数固定的关键词表构建一次，以这部分内存换扫描速度。
+     */
+    private final int[] rootTargets;
+
+    private final int[] failure;
+
+    /**
+     * 每个状态上结束的关键词，包括沿失败链可达的后缀
+     */
+    private final int[][] outputs;
+
+    AhoCorasickAutomaton(List<String> patterns) {
+        List<TreeMap<Character, Integer>> gotos = new ArrayList<>();
+        List<List<Integer>> own = new ArrayList<>();
+        gotos.add(new TreeMap<>());
+        own.add(new ArrayList<>());
+        patternLengths = new int[patterns.size()];
+        for (int p = 0; p < patterns.size(); p++) {
+            String pattern = patterns.get(p);
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("关键词不能为空");
+            }
+            patternLengths[p] = pattern.length();
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer next = gotos.get(state).get(pattern.charAt(i));
+                if (next == null) {
+                    next = gotos.size();
+                    gotos.get(state).put(pattern.charAt(i), next);
+                    gotos.add(new TreeMap<>());
+                    own.add(new ArrayList<>());
+                }
+                state = next;
+            }
+            own.get(state).add(p);
+        }
+
+        int size = gotos.size();
+        keys = new char[size][];
+        targets = new int[size][];
+        for (int s = 0; s < size; s++) {
+            TreeMap<Character, Integer> transitions = gotos.get(s);
+            keys[s] = new char[transitions.size()];
+            targets[s] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                keys[s][i] = transition.getKey();
+                targets[s][i] = transition.getValue();
+                i++;
+            }
+        }
+
+        rootTargets = new int[keys[0].length == 0 ? 0 : keys[0][keys[0].length - 1] + 1];
+        for (int i = 0; i < keys[0].length; i++) {
+            rootTargets[keys[0][i]] = targets[0][i];
+        }
+
+        // 按广度优先计算失败链，子状态的输出合并其失败状态的输出
+        failure = new int[size];
+        outputs = new int[size][];
+        outputs[0] = NO_OUTPUT;
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            failure[child] = 0;
+            outputs[child] = toArray(own.get(child), NO_OUTPUT);
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int i = 0; i < keys[state].length; i++) {
+                char c = keys[state][i];
+                int child = targets[state][i];
+                int fallback = failure[state];
+                while (fallback != 0 && transition(fallback, c) < 0) {
+                    fallback = failure[fallback];
+                }
+                int next = transition(fallback, c);
+                failure[child] = next < 0 || next == child ? 0 : next;
+                outputs[child] = toArray(own.get(child), outputs[failure[child]]);
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * 从 from 开始扫描文本，按关键词结束位置的顺序回调，结束位置相同时先回调较长的关键词
+     */
+    void scan(CharSequence text, int from, MatchHandler handler) {
+        int state = 0;
+        for (int i = from, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            int next = 0;
+            while (state != 0 && (next = transition(state, c)) < 0) {
+                state = failure[state];
+            }
+            // 根状态上没有转移时表中为0，即停留在根状态
+            state = state != 0 ? next : c < rootTargets.length ? rootTargets[c] : 0;
+            for (int pattern : outputs[state]) {
+                if (!handler.onMatch(pattern, i + 1 - patternLengths[pattern], i + 1)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int transition(int state, char c) {
+        int index = Arrays.binarySearch(keys[state], c);
+        return index < 0 ? -1 : targets[state][index];
+    }
+
+    /**
+     * 本状态的关键词在前，沿失败链继承的较短后缀在后，使同一结束位置的匹配按起始位置排列
+     */
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] result = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            result[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, result, own.size(), inherited.length);
+        return result;
+    }
+}
@@ -3,6 +3,7 @@ package org.example.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import javax.annotation.PostConstruct;
 import java.util.Arrays;
@@ -20,27 +21,30 @@ public class AiService {
     @Autowired
     private ImageGenerationService imageGenerationService;
 
-    public String simpleChat(String message) {
-        return ollamaService.chat(message);
+    @Autowired
+    private TenderTextNormalizer normalizer;
+
+    public Mono<String> simpleChat(String message) {
+        return ollamaService.chatReactive(message);
     }
 
-    public String chatWithSystemPrompt(String userMessage, String systemPrompt) {
-        return ollamaService.chatWithSystemPrompt(userMessage, systemPrompt);
+    public Mono<String> chatWithSystemPrompt(String userMessage, String systemPrompt) {
+        return ollamaService.chatWithSystemPromptReactive(userMessage, systemPrompt);
     }
 
-    public String chatWithTemplate(String topic, String style) {
+    public Mono<String> chatWithTemplate(String topic, String style) {
         String template = "请以" + style + "的风格，写一篇关于" + topic + "的文章。\n" +
                 "要求：\n" +
                 "1. 内容要生动有趣\n" +
                 "2. 字数控制在200字左右\n" +
                 "3. 结构清晰";
-        return ollamaService.chat(template);
+        return ollamaService.chatReactive(template);
     }
 
     /**
      * 代码生成助手
      */
-    public String generateCode(String requirement, String language) {
+    public Mono<String> generateCode(String requirement, String language) {
         String systemPrompt = "你是一个专业的程序员，请根据用户的需求生成高质量的代码。\n" +
                 "要求：\n" +
                 "1. 代码要规范，有适当的注释\n" +
@@ -55,14 +59,14 @@ public class AiService {
     /**
      * 文档摘要
      */
-    public String summarizeDocument(String content) {
+    public Mono<String> summarizeDocument(String content) {
         String systemPrompt = "你是一个专业的文档摘要专家。\n" +
                 "请对给定的文档内容进行摘要，要求：\n" +
                 "1. 提取关键信息\n" +
                 "2. 保持逻辑清晰\n" +
                 "3. 字数控制在原文的1/3以内";
         
-        return chatWithSystemPrompt(content, systemPrompt);
+        return chatWithSystemPrompt(normalizer.normalize(content).getText(), systemPrompt);
     }
 
     /**
@@ -1,87 +1,287 @@
 package org.example.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.config.ChunkedAnalysisProperties;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
 import java.util.*;
 
 @Service
 public class BidAnalysisService {
 
+    private static final String ANALYZE_BID_DOCUMENT_SYSTEM_PROMPT = "你是一位专业的招标文件分析师，具有丰富的招投标经验。你的任务是分析一份招标文件，提取其中的关键信息。\n\n" +
+            "请从以下维度分析招标文件：\n" +
+            "1. 项目基本信息：项目名称、招标人、项目规模、预算金额等\n" +
+            "2. 技术要求：关键技术指标、性能要求、质量标准等\n" +
+            "3. 商务要求：付款方式、交付时间、质保期等\n" +
+            "4. 评分标准：各部分的权重分配、评分细则等\n" +
+            "5. 重要时间节点：投标截止时间、开标时间等\n" +
+            "6. 资质要求：投标人需具备的资质、业绩要求等\n" +
+            "7. 风险点识别：潜在的风险条款、需要注意的事项等\n\n" +
+            "请以结构化的方式输出分析结果，便于后续标书编写使用。";
+
+    private static final String IDENTIFY_RISK_POINTS_SYSTEM_PROMPT = "你是一位专业的招标文件风险评估师。你的任务是识别招标文件中的潜在风险点。\n\n" +
+            "请重点关注以下类型的风险：\n" +
+            "1. 法律风险：不合规条款、法律障碍等\n" +
+            "2. 技术风险：过高或不明确的技术要求\n" +
+            "3. 商务风险：不利的付款条件、过短的交付时间等\n" +
+            "4. 资质风险：过高的资质要求、不合理的业绩要求等\n" +
+            "5. 时间风险：过于紧张的时间安排\n\n" +
+            "请列出具体的风险点，并给出简要说明。";
+
+    private static final String EXTRACT_SCORING_CRITERIA_SYSTEM_PROMPT = "你是一位专业的评标专家。你的任务是从招标文件中提取评分标准。\n\n" +
+            "请按照以下格式输出：\n" +
+            "1. 总体评分构成（如：技术部分40分，商务部分30分，价格部分30分）\n" +
+            "2. 技术部分评分细则\n" +
+            "3. 商务部分评分细则\n" +
+            "4. 价格部分评分细则\n" +
+            "5. 其他评分因素\n\n" +
+            "请以结构化的方式呈现评分标准，便于投标方针对性响应。";
+
+    private static final String ANALYZE_CHUNK_SYSTEM_PROMPT = "你是一位专业的招标文件分析师。你将看到一份较长招标文件中的一个片段，请只提取该片段中出现的信息。\n\n" +
+            "可涉及的维度：项目基本信息、技术要求、商务要求、评分标准、重要时间节点、资质要求、风险点。\n" +
+            "片段中未出现的维度直接省略，不要推测或补全。请简洁地分条输出。";
+
+    private static final String MERGE_ANALYSIS_SYSTEM_PROMPT = "你是一位专业的招标文件分析师。下面是同一份招标文件各片段的分析结果，请合并为一份完整的分析。\n\n" +
+            "请按以下维度组织：项目基本信息、技术要求、商务要求、评分标准、重要时间节点、资质要求、风险点识别。\n" +
+            "合并重复内容，保留所有具体数值和时间，前后矛盾之处请注明。请以结构化的方式输出分析结果，便于后续标书编写使用。";
+
+    private static final String EXTRACT_SCORING_CRITERIA_CHUNK_SYSTEM_PROMPT = "你是一位专业的评标专家。你将看到一份较长招标文件中的一个片段，请提取其中的评分标准。\n\n" +
+            "包括评分构成、各部分分值和评分细则。如果该片段不包含评分相关内容，只回复“无”。";
+
+    private static final String MERGE_SCORING_CRITERIA_SYSTEM_PROMPT = "你是一位专业的评标专家。下面是从同一份招标文件各片段中提取的评分标准，请合并为一份完整的评分标准。\n\n" +
+            "请按照以下格式输出：\n" +
+            "1. 总体评分构成\n" +
+            "2. 技术部分评分细则\n" +
+            "3. 商务部分评分细则\n" +
+            "4. 价格部分评分细则\n" +
+            "5. 其他评分因素\n\n" +
+            "合并重复内容，保留所有分值。";
+
+    /**
+     * 片段不含评分内容时模型的回复
+     */
+    private static final String NO_SCORING_CRITERIA = "无";
+
+    /**
+     * 分块提取评分标准时，只分析包含这些词的块；都不包含时分析全部块
+     */
+    private static final String[] SCORING_KEYWORDS = {"评分", "评标", "分值", "得分"};
+
+    /**
+     * 从招标文件中直接提取的字段，一次扫描完成，增加字段不增加扫描次数
+     */
+    private static final TenderFieldExtractor KEY_INFORMATION_EXTRACTOR = TenderFieldExtractor.builder()
+            .field("projectName", TenderFieldExtractor.ValueType.LINE, "项目名称", "工程名称")
+            .field("projectCode", TenderFieldExtractor.ValueType.LINE, "项目编号", "招标编号")
+            .field("budget", TenderFieldExtractor.ValueType.AMOUNT, "预算金额", "项目预算", "投资估算")
+            .field("bidBond", TenderFieldExtractor.ValueType.AMOUNT, "投标保证金")
+            .field("deadline", TenderFieldExtractor.ValueType.LINE, "投标截止时间", "递交投标文件截止时间")
+            .field("deliveryPeriod", TenderFieldExtractor.ValueType.LINE, "交货期", "交付期限", "计划工期", "服务期限")
+            .field("qualification", TenderFieldExtractor.ValueType.PARAGRAPH, "投标人资格要求", "资格要求")
+            .field("scoringCriteria", TenderFieldExtractor.ValueType.PARAGRAPH, "评分标准", "评标办法")
+            .build();
+
+    private static final String PART_KEY_INFORMATION = "keyInformation";
+
+    /**
+     * 完整分析中的LLM调用数
+     */
+    private static final int LLM_PARTS = 3;
+
     @Autowired
     private OllamaService ollamaService;
 
+    @Autowired
+    private SystemPromptRegistry systemPromptRegistry;
+
+    @Autowired
+    private GenerationMetrics generationMetrics;
+
+    @Autowired
+    private ChunkedAnalysisProperties chunking;
+
+    @Autowired
+    private TenderTextNormalizer normalizer;
+
+    /**
+     * 结构索引缓存的内存上限（字节）
+     */
+    private static final long STRUCTURE_INDEX_MAX_BYTES = 32L * 1024 * 1024;
+
+    /**
+     * 最近分析过的招标文件的结构索引，同一文件的多项分析只建一次索引
+     *
+     * key为原文的SHA-256（与 {@link DocumentStore} 的文档ID一致），不以整篇原文作key；索引本身引用原文，按原文大小计重。
+     */
+    private final Cache<String, TenderStructureIndex> structureIndexes = Caffeine.newBuilder()
+            .maximumWeight(STRUCTURE_INDEX_MAX_BYTES)
+            .weigher((String id, TenderStructureIndex index) -> 128 + index.estimatedBytes())
+            .build();
+
+    /**
+     * 注册固定的系统提示，便于Ollama复用其前缀的KV缓存
+     */
+    @PostConstruct
+    public void registerSystemPrompts() {
+        systemPromptRegistry.register("BidAnalysisService.analyzeBidDocument", ANALYZE_BID_DOCUMENT_SYSTEM_PROMPT);
+        systemPromptRegistry.register("BidAnalysisService.identifyRiskPoints", IDENTIFY_RISK_POINTS_SYSTEM_PROMPT);
+        systemPromptRegistry.register("BidAnalysisService.extractScoringCriteria", EXTRACT_SCORING_CRITERIA_SYSTEM_PROMPT);
+        systemPromptRegistry.register("BidAnalysisService.analyzeChunk", ANALYZE_CHUNK_SYSTEM_PROMPT);
+        systemPromptRegistry.register("BidAnalysisService.mergeAnalysis", MERGE_ANALYSIS_SYSTEM_PROMPT);
+        systemPromptRegistry.register("BidAnalysisService.extractScoringCriteriaChunk", EXTRACT_SCORING_CRITERIA_CHUNK_SYSTEM_PROMPT);
+        systemPromptRegistry.register("BidAnalysisService.mergeScoringCriteria", MERGE_SCORING_CRITERIA_SYSTEM_PROMPT);
+    }
+
     /**
      * 智能解析招标文件，提取关键信息
      *
      * @param bidDocument 招标文件内容
      * @return 解析结果
      */
-    public Map<String, Object> analyzeBidDocument(String bidDocument) {
-        String systemPrompt = "你是一位专业的招标文件分析师，具有丰富的招投标经验。你的任务是分析一份招标文件，提取其中的关键信息。\n\n" +
-                "请从以下维度分析招标文件：\n" +
-                "1. 项目基本信息：项目名称、招标人、项目规模、预算金额等\n" +
-                "2. 技术要求：关键技术指标、性能要求、质量标准等\n" +
-                "3. 商务要求：付款方式、交付时间、质保期等\n" +
-                "4. 评分标准：各部分的权重分配、评分细则等\n" +
-                "5. 重要时间节点：投标截止时间、开标时间等\n" +
-                "6. 资质要求：投标人需具备的资质、业绩要求等\n" +
-                "7. 风险点识别：潜在的风险条款、需要注意的事项等\n\n" +
-                "请以结构化的方式输出分析结果，便于后续标书编写使用。";
+    public Mono<Map<String, Object>> analyzeBidDocument(String bidDocument) {
+        return generateAnalysis(normalizer.normalize(bidDocument).getText())
+                .map(analysisResult -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("analysis", analysisResult);
+
+                    // 提取关键信息
+                    result.putAll(extractKeyInformation(bidDocument));
 
+                    return result;
+                })
+                .transform(generationMetrics.timed("BidAnalysisService.analyzeBidDocument"));
+    }
+
+    private Mono<String> generateAnalysis(String bidDocument) {
+        if (shouldChunk(bidDocument)) {
+            return mapChunks(chunks(bidDocument), "请分析以下招标文件片段", ANALYZE_CHUNK_SYSTEM_PROMPT)
+                    .collectList()
+                    .flatMap(partials -> reduce(partials, "请合并以下招标文件各片段的分析结果", MERGE_ANALYSIS_SYSTEM_PROMPT))
+                    .contextWrite(LlmRequestContext.bindCurrent());
+        }
         String userPrompt = String.format("请分析以下招标文件：\n\n%s", bidDocument);
 
-        String analysisResult = ollamaService.chatWithSystemPrompt(userPrompt, systemPrompt);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("originalDocument", bidDocument);
-        result.put("analysis", analysisResult);
-        
-        // 提取关键信息
-        result.putAll(extractKeyInformation(bidDocument));
-        
-        return result;
+        return ollamaService.chatWithSystemPromptReactive(userPrompt, ANALYZE_BID_DOCUMENT_SYSTEM_PROMPT, RequestClass.BULK);
     }
 
     /**
-     * 提取招标文件中的关键信息
+     * 完整分析：关键信息提取、智能解析、风险识别和评分标准提取同时进行，每部分完成后立即发出
+     *
+     * 关键信息提取在 {@link Schedulers#parallel()} 上执行，三个LLM调用由并发限制器排队。
+     * 某一部分失败不影响其他部分，以带 error 的部分发出。
      *
      * @param bidDocument 招标文件内容
-     * @return 关键信息Map
+     * @return 各部分结果，形如 {"type":"part","part":"risks","result":[...]} 或 {"type":"part","part":"risks","error":"..."}
      */
-    private Map<String, Object> extractKeyInformation(String bidDocument) {
-        Map<String, Object> info = new HashMap<>();
-        
-        // 提取项目名称
-        Pattern projectNamePattern = Pattern.compile("(?:项目名称|工程名称)[\\s:：]*([^\n\r]+)");
-        Matcher projectNameMatcher = projectNamePattern.matcher(bidDocument);
-        if (projectNameMatcher.find()) {
-            info.put("projectName", projectNameMatcher.group(1).trim());
-        }
-        
-        // 提取预算金额
-        Pattern budgetPattern = Pattern.compile("(?:预算金额|项目预算|投资估算)[\\s:：]*([\\d,.]+\\s*万?元?)");
-        Matcher budgetMatcher = budgetPattern.matcher(bidDocument);
-        if (budgetMatcher.find()) {
-            info.put("budget", budgetMatcher.group(1).trim());
+    public Flux<Map<String, Object>> analyzeBidDocumentFully(String bidDocument) {
+        return fanOut(bidDocument).map(AnalysisPart::toMap);
+    }
+
+    /**
+     * 完整分析的合并结果，耗时约等于最慢的一个LLM调用
+     *
+     * 结果包含 keyInformation、analysis、risks、scoringCriteria，失败的部分列在 errors 中；
+     * 三个LLM调用都失败时以第一个错误结束。
+     *
+     * @param bidDocument 招标文件内容
+     * @return 合并的分析结果
+     */
+    public Mono<Map<String, Object>> analyzeBidDocumentFullyMerged(String bidDocument) {
+        return fanOut(bidDocument)
+                .collectList()
+                .flatMap(parts -> {
+                    Map<String, Object> result = new LinkedHashMap<>();
+                    Map<String, String> errors = new LinkedHashMap<>();
+                    Throwable firstLlmError = null;
+                    int llmFailures = 0;
+                    for (AnalysisPart part : parts) {
+                        if (part.error == null) {
+                            result.put(part.name, part.value);
+                            continue;
+                        }
+                        errors.put(part.name, part.error.getMessage());
+                        if (!PART_KEY_INFORMATION.equals(part.name)) {
+                            llmFailures++;
+                            firstLlmError = firstLlmError == null ? part.error : firstLlmError;
+                        }
+                    }
+                    if (llmFailures == LLM_PARTS) {
+                        return Mono.error(firstLlmError);
+                    }
+                    if (!errors.isEmpty()) {
+                        result.put("errors", errors);
+                    }
+                    return Mono.just(result);
+                })
+                .transform(generationMetrics.timed("BidAnalysisService.analyzeBidDocumentFully"));
+    }
+
+    private Flux<AnalysisPart> fanOut(String bidDocument) {
+        String text = normalizer.normalize(bidDocument).getText();
+        Mono<Object> keyInformation = Mono.<Object>fromCallable(() -> extractKeyInformation(bidDocument))
+                .subscribeOn(Schedulers.parallel());
+        return Flux.merge(
+                        part(PART_KEY_INFORMATION, keyInformation),
+                        part("analysis", generateAnalysis(text)),
+                        part("risks", identifyRiskPointsIn(text)),
+                        part("scoringCriteria", extractScoringCriteriaIn(text)))
+                // 部分调用在其他线程上发起，耗时统计需通过上下文关联到当前请求
+                .contextWrite(LlmRequestContext.bindCurrent());
+    }
+
+    private static Mono<AnalysisPart> part(String name, Mono<?> call) {
+        return call.<AnalysisPart>map(value -> new AnalysisPart(name, value, null))
+                .onErrorResume(error -> Mono.just(new AnalysisPart(name, null, error)));
+    }
+
+    /**
+     * 完整分析中一部分的结果
+     */
+    private static final class AnalysisPart {
+
+        private final String name;
+
+        private final Object value;
+
+        private final Throwable error;
+
+        private AnalysisPart(String name, Object value, Throwable error) {
+            this.name = name;
+            this.value = value;
+            this.error = error;
         }
-        
-        // 提取投标截止时间
-        Pattern deadlinePattern = Pattern.compile("(?:投标截止时间|递交投标文件截止时间)[\\s:：]*([^\n\r]+)");
-        Matcher deadlineMatcher = deadlinePattern.matcher(bidDocument);
-        if (deadlineMatcher.find()) {
-            info.put("deadline", deadlineMatcher.group(1).trim());
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("type", "part");
+            map.put("part", name);
+            if (error == null) {
+                map.put("result", value);
+            } else {
+                map.put("error", error.getMessage());
+            }
+            return map;
         }
-        
-        // 提取评分标准
-        Pattern scoringPattern = Pattern.compile("(?:评分标准|评标办法)[\\s:：]*([^\n\r]+(?:\n[^\n\r]*){0,10})");
-        Matcher scoringMatcher = scoringPattern.matcher(bidDocument);
-        if (scoringMatcher.find()) {
-            info.put("scoringCriteria", scoringMatcher.group(1).trim());
+    }
+
+    /**
+     * 从招标文件中直接提取项目名称、预算、截止时间等关键信息，不调用模型
+     *
+     * @param bidDocument 招标文件内容
+     * @return 关键信息Map
+     */
+    public Map<String, Object> extractKeyInformation(String bidDocument) {
+        Map<String, Object> info = new HashMap<>();
+        for (TenderFieldExtractor.FieldMatch match : KEY_INFORMATION_EXTRACTOR.extract(bidDocument).values()) {
+            info.put(match.getField(), match.getValue());
         }
-        
         return info;
     }
 
@@ -91,30 +291,42 @@ public class BidAnalysisService {
      * @param bidDocument 招标文件内容
      * @return 风险点列表
      */
-    public List<String> identifyRiskPoints(String bidDocument) {
-        String systemPrompt = "你是一位专业的招标文件风险评估师。你的任务是识别招标文件中的潜在风险点。\n\n" +
-                "请重点关注以下类型的风险：\n" +
-                "1. 法律风险：不合规条款、法律障碍等\n" +
-                "2. 技术风险：过高或不明确的技术要求\n" +
-                "3. 商务风险：不利的付款条件、过短的交付时间等\n" +
-                "4. 资质风险：过高的资质要求、不合理的业绩要求等\n" +
-                "5. 时间风险：过于紧张的时间安排\n\n" +
-                "请列出具体的风险点，并给出简要说明。";
-
-        String userPrompt = String.format("请识别以下招标文件中的风险点：\n\n%s", bidDocument);
-
-        String riskAnalysis = ollamaService.chatWithSystemPrompt(userPrompt, systemPrompt);
-        
-        // 将分析结果拆分为列表
-        String[] risks = riskAnalysis.split("\n");
-        List<String> riskList = new ArrayList<>();
-        for (String risk : risks) {
-            if (risk.trim().length() > 0) {
-                riskList.add(risk.trim());
-            }
+    public Mono<List<String>> identifyRiskPoints(String bidDocument) {
+        return identifyRiskPointsIn(normalizer.normalize(bidDocument).getText());
+    }
+
+    /**
+     * 在已精简的招标文件中识别风险点
+     */
+    private Mono<List<String>> identifyRiskPointsIn(String text) {
+        // 只发送须知、资格、商务和合同等相关章节
+        String relevant = relevantText(text, TenderStructureIndex.Topic.RISK);
+        Mono<String> riskAnalysis;
+        if (shouldChunk(relevant)) {
+            // 各片段的风险点直接合并去重，无需再调用模型
+            riskAnalysis = mapChunks(chunks(relevant), "请识别以下招标文件片段中的风险点", IDENTIFY_RISK_POINTS_SYSTEM_PROMPT)
+                    .collectList()
+                    .map(partials -> String.join("\n", partials))
+                    .contextWrite(LlmRequestContext.bindCurrent());
+        } else {
+            String userPrompt = String.format("请识别以下招标文件中的风险点：\n\n%s", relevant);
+            riskAnalysis = ollamaService.chatWithSystemPromptReactive(userPrompt, IDENTIFY_RISK_POINTS_SYSTEM_PROMPT);
         }
-        
-        return riskList;
+
+        return riskAnalysis
+                .<List<String>>map(analysis -> {
+                    // 将分析结果拆分为列表，去掉重复的风险点
+                    String[] risks = analysis.split("\n");
+                    Set<String> riskList = new LinkedHashSet<>();
+                    for (String risk : risks) {
+                        if (risk.trim().length() > 0) {
+                            riskList.add(risk.trim());
+                        }
+                    }
+
+                    return new ArrayList<>(riskList);
+                })
+                .transform(generationMetrics.timed("BidAnalysisService.identifyRiskPoints"));
     }
 
     /**
@@ -123,23 +335,141 @@ public class BidAnalysisService {
      * @param bidDocument 招标文件内容
      * @return 评分标准详情
      */
-    public Map<String, Object> extractScoringCriteria(String bidDocument) {
-        String systemPrompt = "你是一位专业的评标专家。你的任务是从招标文件中提取评分标准。\n\n" +
-                "请按照以下格式输出：\n" +
-                "1. 总体评分构成（如：技术部分40分，商务部分30分，价格部分30分）\n" +
-                "2. 技术部分评分细则\n" +
-                "3. 商务部分评分细则\n" +
-                "4. 价格部分评分细则\n" +
-                "5. 其他评分因素\n\n" +
-                "请以结构化的方式呈现评分标准，便于投标方针对性响应。";
-
-        String userPrompt = String.format("请提取以下招标文件中的评分标准：\n\n%s", bidDocument);
-
-        String criteria = ollamaService.chatWithSystemPrompt(userPrompt, systemPrompt);
-        
-        Map<String, Object> result = new HashMap<>();
-        result.put("criteriaDetails", criteria);
-        
-        return result;
-    }
-}
\ No newline at end of file
+    public Mono<Map<String, Object>> extractScoringCriteria(String bidDocument) {
+        return extractScoringCriteriaIn(normalizer.normalize(bidDocument).getText());
+    }
+
+    /**
+     * 在已精简的招标文件中提取评分标准
+     */
+    private Mono<Map<String, Object>> extractScoringCriteriaIn(String text) {
+        // 只发送评分、评标相关章节
+        String relevant = relevantText(text, TenderStructureIndex.Topic.SCORING);
+        Mono<String> scoringCriteria;
+        if (shouldChunk(relevant)) {
+            scoringCriteria = mapChunks(scoringChunks(chunks(relevant)), "请提取以下招标文件片段中的评分标准",
+                            EXTRACT_SCORING_CRITERIA_CHUNK_SYSTEM_PROMPT)
+                    .filter(partial -> !isNoScoringCriteria(partial))
+                    .collectList()
+                    .flatMap(partials -> partials.isEmpty()
+                            ? Mono.just("未在招标文件中找到评分标准")
+                            : reduce(partials, "请合并以下各片段中提取的评分标准", MERGE_SCORING_CRITERIA_SYSTEM_PROMPT))
+                    .contextWrite(LlmRequestContext.bindCurrent());
+        } else {
+            String userPrompt = String.format("请提取以下招标文件中的评分标准：\n\n%s", relevant);
+            scoringCriteria = ollamaService.chatWithSystemPromptReactive(userPrompt, EXTRACT_SCORING_CRITERIA_SYSTEM_PROMPT);
+        }
+
+        return scoringCriteria
+                .map(criteria -> {
+                    Map<String, Object> result = new HashMap<>();
+                    result.put("criteriaDetails", criteria);
+
+                    return result;
+                })
+                .transform(generationMetrics.timed("BidAnalysisService.extractScoringCriteria"));
+    }
+
+    /**
+     * 与主题相关的章节原文；未识别出相关章节时为全文
+     */
+    private String relevantText(String bidDocument, TenderStructureIndex.Topic topic) {
+        String excerpt = structureIndexes.get(DocumentStore.idOf(bidDocument), id -> TenderStructureIndex.build(bidDocument))
+                .excerpt(topic);
+        return excerpt == null ? bidDocument : excerpt;
+    }
+
+    /**
+     * 预估token数超过单块上限时分块分析
+     */
+    private boolean shouldChunk(String bidDocument) {
+        return chunking.isEnabled() && TokenEstimator.estimate(bidDocument) > chunking.getMaxChunkTokens();
+    }
+
+    private List<TenderChunker.Chunk> chunks(String bidDocument) {
+        return new TenderChunker(chunking.getMaxChunkTokens()).split(bidDocument);
+    }
+
+    private static List<TenderChunker.Chunk> scoringChunks(List<TenderChunker.Chunk> chunks) {
+        List<TenderChunker.Chunk> matched = new ArrayList<>();
+        for (TenderChunker.Chunk chunk : chunks) {
+            for (String keyword : SCORING_KEYWORDS) {
+                if (chunk.getText().contains(keyword)) {
+                    matched.add(chunk);
+                    break;
+                }
+            }
+        }
+        return matched.isEmpty() ? chunks : matched;
+    }
+
+    private static boolean isNoScoringCriteria(String partial) {
+        String answer = partial.trim();
+        if (answer.endsWith("。") || answer.endsWith(".")) {
+            answer = answer.substring(0, answer.length() - 1);
+        }
+        return NO_SCORING_CRITERIA.equals(answer);
+    }
+
+    /**
+     * map：各块同时分析，最多 parallelism 块同时进行，结果按块的顺序发出
+     *
+     * 前 parallelism 块之后的调用和 {@link #reduce} 在上一次调用完成的线程上发起，
+     * 调用方需用 {@link LlmRequestContext#bindCurrent()} 把当前请求的状态写入上下文。
+     * 块数超过 max-chunks 时不调用模型，以 {@link DocumentTooLargeException} 结束。
+     */
+    private Flux<String> mapChunks(List<TenderChunker.Chunk> chunks, String instruction, String systemPrompt) {
+        int total = chunks.size();
+        if (total > chunking.getMaxChunks()) {
+            return Flux.error(new DocumentTooLargeException(
+                    "招标文件需分为" + total + "块分析，超过单次请求" + chunking.getMaxChunks() + "块的上限"));
+        }
+        return Flux.fromIterable(chunks)
+                .flatMapSequential(chunk -> {
+                    String section = chunk.getHeading() == null ? "" : "，所属章节：" + chunk.getHeading();
+                    String userPrompt = String.format("%s（第%d/%d部分%s）：\n\n%s",
+                            instruction, chunk.getIndex() + 1, total, section, chunk.getText());
+                    return ollamaService.chatWithSystemPromptReactive(userPrompt, systemPrompt, RequestClass.BULK);
+                }, Math.max(1, chunking.getParallelism()));
+    }
+
+    /**
+     * reduce：合并各块的结果；合并输入超出单块上限时先分组合并，再合并各组的结果
+     */
+    private Mono<String> reduce(List<String> partials, String instruction, String systemPrompt) {
+        if (partials.size() == 1) {
+            return Mono.just(partials.get(0));
+        }
+        // 每组至少两个结果，保证每轮合并后结果数减少
+        List<List<String>> groups = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        int tokens = 0;
+        for (String partial : partials) {
+            int partialTokens = TokenEstimator.estimate(partial);
+            if (group.size() >= 2 && tokens + partialTokens > chunking.getMaxChunkTokens()) {
+                groups.add(group);
+                group = new ArrayList<>();
+                tokens = 0;
+            }
+            group.add(partial);
+            tokens += partialTokens;
+        }
+        groups.add(group);
+
+        return Flux.fromIterable(groups)
+                .flatMapSequential(members -> members.size() == 1
+                        ? Mono.just(members.get(0))
+                        : ollamaService.chatWithSystemPromptReactive(mergePrompt(instruction, members), systemPrompt, RequestClass.BULK),
+                        Math.max(1, chunking.getParallelism()))
+                .collectList()
+                .flatMap(merged -> groups.size() == 1 ? Mono.just(merged.get(0)) : reduce(merged, instruction, systemPrompt));
+    }
+
+    private static String mergePrompt(String instruction, List<String> partials) {
+        StringBuilder prompt = new StringBuilder(instruction).append("：\n\n");
+        for (int i = 0; i < partials.size(); i++) {
+            prompt.append("【第").append(i + 1).append("部分】\n").append(partials.get(i).trim()).append("\n\n");
+        }
+        return prompt.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.service;
+
+/**
+ * 单个Ollama节点的熔断器
+ *
+ * 连续失败达到阈值后打开，打开期间节点不参与路由；到期后进入半开状态，只放行少量试探请求，
+ * 试探成功则关闭，失败则重新打开。
+ */
+final class CircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openNanos;
+
+    private final int halfOpenMaxCalls;
+
+    private State state = State.CLOSED;
+
+    private int consecutiveFailures;
+
+    private long openedAtNanos;
+
+    private int halfOpenCalls;
+
+    CircuitBreaker(int failureThreshold, long openNanos, int halfOpenMaxCalls) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openNanos;
+        this.halfOpenMaxCalls = halfOpenMaxCalls;
+    }
+
+    synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+            halfOpenCalls = 0;
+        }
+        return state;
+    }
+
+    /**
+     * 当前是否允许新的调用，不占用半开状态的试探名额
+     */
+    synchronized boolean isCallPermitted() {
+        State current = getState();
+        return current == State.CLOSED || (current == State.HALF_OPEN && halfOpenCalls < halfOpenMaxCalls);
+    }
+
+    /**
+     * 占用一次调用名额，半开状态下名额用尽时返回false
+     */
+    synchronized boolean tryAcquire() {
+        if (!isCallPermitted()) {
+            return false;
+        }
+        if (state == State.HALF_OPEN) {
+            halfOpenCalls++;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @return 本次是否导致熔断器打开
+     */
+    synchronized boolean onFailure() {
+        if (getState() == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            consecutiveFailures = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 调用被取消，既不算成功也不算失败，归还半开状态的试探名额
+     */
+    synchronized void onCancel() {
+        if (state == State.HALF_OPEN && halfOpenCalls > 0) {
+            halfOpenCalls--;
+        }
+    }
+}
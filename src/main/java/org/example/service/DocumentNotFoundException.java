@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * 文档ID不存在或文档已过期时抛出，对应HTTP 404
+ */
+public class DocumentNotFoundException extends RuntimeException {
+
+    public DocumentNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,286 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.config.DocumentStoreProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 招标文件、标书等文档的服务端存储
+ *
+ * 文档上传一次后以内容的SHA-256作为ID，后续的分析、目录、章节和导出接口传ID即可，不必每次重新发送全文。
+ * 内存层按字节上限淘汰；启用磁盘层时文档同时写入磁盘，内存层淘汰后从磁盘读回，
+ * 磁盘上最后一次写入或读取后超过 disk-ttl 的文件在之后的写入时清理。
+ */
+@Service
+public class DocumentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentStore.class);
+
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{64}");
+
+    /**
+     * 单个条目除字符串外的估算开销（key、节点、引用等）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    /**
+     * 磁盘层过期文件的清理间隔
+     */
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final DocumentStoreProperties properties;
+
+    private final Cache<String, String> memory;
+
+    /**
+     * 磁盘层目录，未启用或目录不可用时为null
+     */
+    private final Path directory;
+
+    private final AtomicLong nextSweepNanos = new AtomicLong(System.nanoTime());
+
+    private final Counter diskReads;
+
+    public DocumentStore(DocumentStoreProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.memory = Caffeine.newBuilder()
+                .maximumWeight(properties.getMemoryMaxBytes())
+                .weigher((String id, String content) -> ENTRY_OVERHEAD_BYTES + content.length() * 2)
+                .expireAfterAccess(properties.getMemoryTtl())
+                .recordStats()
+                .build();
+        this.directory = properties.isDiskEnabled() ? createDirectory(properties.getDirectory()) : null;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, memory, "document.store");
+        this.diskReads = Counter.builder("document.store.disk.reads")
+                .description("内存层未命中、从磁盘层读回的文档数")
+                .register(meterRegistry);
+    }
+
+    private static Path createDirectory(String directory) {
+        try {
+            return Files.createDirectories(Paths.get(directory));
+        } catch (IOException e) {
+            log.warn("文档存储目录不可用，只使用内存层: {} ({})", directory, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 存储文档，相同内容得到相同的ID
+     *
+     * @param content 文档内容
+     * @return 文档ID
+     */
+    public String put(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String id = hash(bytes);
+        memory.put(id, content);
+        if (directory != null) {
+            write(id, bytes);
+            sweepIfDue();
+        }
+        return id;
+    }
+
+    /**
+     * 读取文档
+     *
+     * @param id 文档ID
+     * @return 文档内容
+     * @throws DocumentNotFoundException 文档不存在或已过期
+     */
+    public String get(String id) {
+        if (id == null || !ID.matcher(id).matches()) {
+            throw new DocumentNotFoundException("文档ID无效: " + id);
+        }
+        String content = memory.getIfPresent(id);
+        if (content != null) {
+            return content;
+        }
+        content = read(id);
+        if (content == null) {
+            throw new DocumentNotFoundException("文档不存在或已过期，请重新上传: " + id);
+        }
+        diskReads.increment();
+        memory.put(id, content);
+        return content;
+    }
+
+    /**
+     * 删除文档
+     *
+     * @return 文档是否存在
+     */
+    public boolean delete(String id) {
+        if (id == null || !ID.matcher(id).matches()) {
+            return false;
+        }
+        boolean existed = memory.asMap().remove(id) != null;
+        if (directory != null) {
+            try {
+                existed |= Files.deleteIfExists(file(id));
+            } catch (IOException e) {
+                log.warn("删除文档失败: {} ({})", id, e.getMessage());
+            }
+        }
+        return existed;
+    }
+
+    /**
+     * 按请求参数取得文档：有 documentId 时读取已存储的文档，否则存储请求中的原文
+     *
+     * @param documentId 文档ID，可为空
+     * @param content 原文，可为空
+     * @return 文档，两者都为空时为null
+     * @throws DocumentNotFoundException documentId 不存在或已过期
+     */
+    public StoredDocument resolve(String documentId, String content) {
+        if (documentId != null && !documentId.trim().isEmpty()) {
+            String id = documentId.trim();
+            return new StoredDocument(id, get(id));
+        }
+        if (content == null || content.trim().isEmpty()) {
+            return null;
+        }
+        return new StoredDocument(put(content), content);
+    }
+
+    /**
+     * 文档内容对应的ID（内容UTF-8编码的SHA-256），与 {@link #put} 返回的ID一致
+     */
+    public static String idOf(String content) {
+        return hash(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path file(String id) {
+        return directory.resolve(id + ".txt");
+    }
+
+    /**
+     * 写入磁盘层；文件已存在时只更新修改时间
+     */
+    private void write(String id, byte[] bytes) {
+        Path target = file(id);
+        try {
+            if (Files.exists(target)) {
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                return;
+            }
+            Path temp = Files.createTempFile(directory, id, ".tmp");
+            try {
+                Files.write(temp, bytes);
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            log.warn("文档写入磁盘失败，只保存在内存中: {} ({})", id, e.getMessage());
+        }
+    }
+
+    private String read(String id) {
+        if (directory == null) {
+            return null;
+        }
+        Path source = file(id);
+        try {
+            String content = new String(Files.readAllBytes(source), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis()));
+            return content;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("从磁盘读取文档失败: {} ({})", id, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 清理磁盘层中过期的文档，每个间隔内最多执行一次
+     */
+    private void sweepIfDue() {
+        long now = System.nanoTime();
+        long due = nextSweepNanos.get();
+        if (now - due < 0 || !nextSweepNanos.compareAndSet(due, now + SWEEP_INTERVAL_NANOS)) {
+            return;
+        }
+        long expiredBefore = System.currentTimeMillis() - properties.getDiskTtl().toMillis();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().endsWith(".txt"))
+                    .forEach(path -> {
+                        try {
+                            if (Files.getLastModifiedTime(path).toMillis() < expiredBefore) {
+                                Files.deleteIfExists(path);
+                            }
+                        } catch (IOException e) {
+                            log.debug("清理过期文档失败: {} ({})", path, e.getMessage());
+                        }
+                    });
+        } catch (IOException e) {
+            log.warn("清理过期文档失败: {}", e.getMessage());
+        }
+    }
+
+    private static String hash(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 已存储的文档
+     */
+    public static final class StoredDocument {
+
+        private final String id;
+
+        private final String content;
+
+        private StoredDocument(String id, String content) {
+            this.id = id;
+            this.content = content;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getContent() {
+            return content;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * 上传文件或解码后的文本超过配置的上限时抛出，对应HTTP 413
+ */
+public class DocumentTooLargeException extends RuntimeException {
+
+    public DocumentTooLargeException(String message) {
+        super(message);
+    }
+}
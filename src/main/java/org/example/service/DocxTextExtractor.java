@@ -0,0 +1,109 @@
+package org.example.service;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 从DOCX中提取正文文字
+ *
+ * 用StAX流式读取 word/document.xml，只保留 w:t 中的文字，段落末尾换行，不构建整个文档的对象模型。
+ * 删除修订（w:delText）和域代码（w:instrText）不计入正文。
+ */
+final class DocxTextExtractor {
+
+    private static final String WORD_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    private static final String DOCUMENT_ENTRY = "word/document.xml";
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private DocxTextExtractor() {
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        // 禁止DTD和外部实体，防止XXE
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    /**
+     * 提取DOCX文件的正文
+     *
+     * @param path DOCX文件
+     * @param maxChars 字符上限
+     * @throws UnsupportedDocumentException 不是DOCX文件或XML无法解析
+     * @throws DocumentTooLargeException 正文超过字符上限
+     */
+    static String extract(Path path, int maxChars) throws IOException {
+        try (ZipFile zip = new ZipFile(path.toFile())) {
+            ZipEntry entry = zip.getEntry(DOCUMENT_ENTRY);
+            if (entry == null) {
+                throw new UnsupportedDocumentException("不支持的文件格式：压缩包中没有 " + DOCUMENT_ENTRY);
+            }
+            try (InputStream in = zip.getInputStream(entry)) {
+                return extract(in, maxChars);
+            }
+        }
+    }
+
+    static String extract(InputStream in, int maxChars) {
+        XMLStreamReader reader = null;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+            StringBuilder text = new StringBuilder();
+            // w:tab、w:br 也出现在段落属性的制表位定义中，只有在 w:r 内才表示正文
+            boolean inRun = false;
+            boolean inText = false;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                    String name = reader.getLocalName();
+                    if ("r".equals(name)) {
+                        inRun = true;
+                    } else if ("t".equals(name)) {
+                        inText = inRun;
+                    } else if (inRun && "tab".equals(name)) {
+                        text.append('\t');
+                    } else if (inRun && ("br".equals(name) || "cr".equals(name))) {
+                        text.append('\n');
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && WORD_NS.equals(reader.getNamespaceURI())) {
+                    String name = reader.getLocalName();
+                    if ("r".equals(name)) {
+                        inRun = false;
+                    } else if ("t".equals(name)) {
+                        inText = false;
+                    } else if ("p".equals(name)) {
+                        text.append('\n');
+                    }
+                } else if (inText && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+                if (text.length() > maxChars) {
+                    throw new DocumentTooLargeException("文件内容超过" + maxChars + "字符上限");
+                }
+            }
+            return text.toString();
+        } catch (XMLStreamException e) {
+            throw new UnsupportedDocumentException("DOCX文件解析失败: " + e.getMessage());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                    // 输入流由调用方关闭
+                }
+            }
+        }
+    }
+}
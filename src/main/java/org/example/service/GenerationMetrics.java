@@ -0,0 +1,52 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 业务方法（标书分析、章节生成等）的耗时指标
+ *
+ * 计时从订阅开始到结束为止，而不是方法返回Mono的时刻；按服务、方法和结果（成功/失败/取消）区分。
+ */
+@Component
+public class GenerationMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    public GenerationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 用于 {@code Mono.transform}
+     *
+     * @param operation 形如 "BidSectionService.generateSectionContent"，与系统提示注册名一致
+     */
+    public <T> Function<Mono<T>, Mono<T>> timed(String operation) {
+        // 在终止信号传给下游之前记录，调用方拿到结果时指标已可见
+        return call -> Mono.defer(() -> {
+            long start = System.nanoTime();
+            return call
+                    .doOnSuccess(value -> record(operation, "success", start))
+                    .doOnError(error -> record(operation, "failure", start))
+                    .doOnCancel(() -> record(operation, "cancelled", start));
+        });
+    }
+
+    private void record(String operation, String outcome, long start) {
+        long nanos = System.nanoTime() - start;
+        int dot = operation.indexOf('.');
+        Timer.builder("llm.operation")
+                .description("业务方法的生成耗时")
+                .tag("service", dot < 0 ? operation : operation.substring(0, dot))
+                .tag("method", dot < 0 ? "" : operation.substring(dot + 1))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
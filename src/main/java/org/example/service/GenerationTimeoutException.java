@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * 生成调用超过截止时间时抛出，对应HTTP 504
+ */
+public class GenerationTimeoutException extends RuntimeException {
+
+    public GenerationTimeoutException(String message) {
+        super(message);
+    }
+}
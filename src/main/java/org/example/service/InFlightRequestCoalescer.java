@@ -0,0 +1,94 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 合并相同key的并发生成请求（single-flight）
+ *
+ * 第一个请求触发真正的生成，同一时间到达的相同请求订阅同一个进行中的结果；
+ * 流式结果使用重放的共享Flux，后加入的订阅者也能收到完整的token序列。
+ * 所有订阅者都取消后才会取消上游请求。
+ */
+@Service
+public class InFlightRequestCoalescer {
+
+    private final ConcurrentMap<String, Mono<String>> inFlightCalls = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Flux<String>> inFlightStreams = new ConcurrentHashMap<>();
+
+    private final Counter coalescedCalls;
+
+    private final Counter coalescedStreams;
+
+    public InFlightRequestCoalescer(MeterRegistry meterRegistry) {
+        this.coalescedCalls = Counter.builder("ollama.coalesced")
+                .description("合并到进行中生成的请求数")
+                .tag("type", "call")
+                .register(meterRegistry);
+        this.coalescedStreams = Counter.builder("ollama.coalesced")
+                .description("合并到进行中生成的请求数")
+                .tag("type", "stream")
+                .register(meterRegistry);
+        Gauge.builder("ollama.inflight.unique", inFlightCalls, ConcurrentMap::size)
+                .tag("type", "call")
+                .register(meterRegistry);
+        Gauge.builder("ollama.inflight.unique", inFlightStreams, ConcurrentMap::size)
+                .tag("type", "stream")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 合并非流式生成
+     */
+    public Mono<String> coalesce(String key, Supplier<Mono<String>> generator) {
+        return Mono.defer(() -> {
+            boolean[] created = new boolean[1];
+            Mono<String> shared = inFlightCalls.computeIfAbsent(key, k -> {
+                created[0] = true;
+                AtomicReference<Mono<String>> self = new AtomicReference<>();
+                Mono<String> mono = Mono.defer(generator)
+                        .doFinally(signal -> inFlightCalls.remove(k, self.get()))
+                        .share();
+                self.set(mono);
+                return mono;
+            });
+            if (!created[0]) {
+                coalescedCalls.increment();
+            }
+            return shared;
+        });
+    }
+
+    /**
+     * 合并流式生成，后加入的订阅者会先收到已生成的token
+     */
+    public Flux<String> coalesceStream(String key, Supplier<Flux<String>> generator) {
+        return Flux.defer(() -> {
+            boolean[] created = new boolean[1];
+            Flux<String> shared = inFlightStreams.computeIfAbsent(key, k -> {
+                created[0] = true;
+                AtomicReference<Flux<String>> self = new AtomicReference<>();
+                Flux<String> flux = Flux.defer(generator)
+                        .doFinally(signal -> inFlightStreams.remove(k, self.get()))
+                        .replay()
+                        .refCount();
+                self.set(flux);
+                return flux;
+            });
+            if (!created[0]) {
+                coalescedStreams.increment();
+            }
+            return shared;
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
@@ -14,6 +16,15 @@ public class KnowledgeBaseService {
     // 模拟索引结构
     private final Map<String, List<String>> keywordIndex = new ConcurrentHashMap<>();
 
+    public KnowledgeBaseService(MeterRegistry meterRegistry) {
+        Gauge.builder("knowledge.base.entries", knowledgeBase, Map::size)
+                .description("知识库条目数")
+                .register(meterRegistry);
+        Gauge.builder("knowledge.base.keywords", keywordIndex, Map::size)
+                .description("关键词索引中的关键词数")
+                .register(meterRegistry);
+    }
+
     /**
      * 知识条目类
      */
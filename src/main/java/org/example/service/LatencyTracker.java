@@ -0,0 +1,44 @@
+package org.example.service;
+
+import java.util.Arrays;
+
+/**
+ * 最近N次调用耗时的滑动窗口，用于计算对冲请求的延迟阈值
+ */
+final class LatencyTracker {
+
+    private final long[] samples;
+
+    private int next;
+
+    private int count;
+
+    LatencyTracker(int windowSize) {
+        this.samples = new long[windowSize];
+    }
+
+    synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * 窗口内耗时的分位数（纳秒），没有样本时返回0
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+}
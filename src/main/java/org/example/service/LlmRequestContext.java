@@ -0,0 +1,59 @@
+package org.example.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+
+/**
+ * 请求范围内与LLM调用相关的状态：耗时汇总（{@link LlmTiming}）和是否跳过响应缓存
+ *
+ * LLM调用可能在其他线程上才发起（如 flatMapSequential、concatMap 内部），那里 RequestContextHolder 为空。
+ * 在请求线程上组装调用链时用 {@link #bindCurrent()} 把这些状态写入Reactor上下文，发起调用处再从上下文读取。
+ */
+public final class LlmRequestContext {
+
+    /**
+     * 请求属性名，为 {@code Boolean.TRUE} 时该请求跳过LLM响应缓存的读取；同时作为Reactor上下文的key
+     */
+    public static final String CACHE_BYPASS = LlmRequestContext.class.getName() + ".cacheBypass";
+
+    private LlmRequestContext() {
+    }
+
+    /**
+     * 把当前请求的状态写入Reactor上下文
+     *
+     * 外层已写入时保留外层的值：内层调用链可能是在其他线程上组装的，读到的不是当前请求。
+     */
+    public static Function<Context, Context> bindCurrent() {
+        LlmTiming timing = LlmTiming.current();
+        boolean cacheBypass = isCacheBypassRequested();
+        return context -> {
+            Context bound = context.hasKey(LlmTiming.class) ? context : context.put(LlmTiming.class, timing);
+            return bound.hasKey(CACHE_BYPASS) ? bound : bound.put(CACHE_BYPASS, cacheBypass);
+        };
+    }
+
+    /**
+     * 上下文中的耗时汇总，未绑定时为当前请求的耗时汇总
+     */
+    public static LlmTiming timing(ContextView context) {
+        return context.hasKey(LlmTiming.class) ? context.get(LlmTiming.class) : LlmTiming.current();
+    }
+
+    /**
+     * 上下文中是否带有跳过缓存标记
+     */
+    public static boolean isCacheBypass(ContextView context) {
+        return context.getOrDefault(CACHE_BYPASS, Boolean.FALSE);
+    }
+
+    private static boolean isCacheBypassRequested() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null
+                && Boolean.TRUE.equals(attributes.getAttribute(CACHE_BYPASS, RequestAttributes.SCOPE_REQUEST));
+    }
+}
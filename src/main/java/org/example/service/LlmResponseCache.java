@@ -0,0 +1,120 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.config.LlmCacheProperties;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * LLM响应的精确匹配缓存
+ *
+ * key为 (模型, 系统提示, 用户提示, 生成参数) 的SHA-256，容量按字节计算，
+ * 由Caffeine的W-TinyLFU策略淘汰。只缓存成功的生成结果。
+ */
+@Service
+public class LlmResponseCache {
+
+    /**
+     * 单个条目除字符串外的估算开销（key、节点、引用等）
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    private final LlmCacheProperties properties;
+
+    private final Cache<String, String> cache;
+
+    public LlmResponseCache(LlmCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxBytes())
+                .weigher((String key, String value) -> weigh(key, value))
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "llm.response");
+        Gauge.builder("llm.response.cache.weight", cache,
+                        c -> c.policy().eviction().map(e -> (double) e.weightedSize().orElse(0L)).orElse(0.0))
+                .description("缓存中响应的估算字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 计算缓存key
+     */
+    public String key(String model, String systemPrompt, String userPrompt, Map<String, Object> options) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, model);
+            update(digest, systemPrompt);
+            update(digest, userPrompt);
+            update(digest, options == null ? null : new TreeMap<>(options).toString());
+
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    /**
+     * 先查缓存，未命中时执行生成并写入缓存
+     *
+     * Reactor上下文中带有跳过缓存标记（见 {@link LlmRequestContext}）时不读缓存，但仍用新结果刷新缓存。
+     */
+    public Mono<String> getOrGenerate(String key, Supplier<Mono<String>> generator) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(generator);
+        }
+
+        return Mono.deferContextual(context -> {
+            if (!LlmRequestContext.isCacheBypass(context)) {
+                String cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    return Mono.just(cached);
+                }
+            }
+            return generator.get().doOnNext(value -> cache.put(key, value));
+        });
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static int weigh(String key, String value) {
+        long bytes = ENTRY_OVERHEAD_BYTES + 2L * key.length() + 2L * value.length();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // 写入长度，避免不同字段拼接后产生相同的字节序列
+        digest.update(new byte[] {
+                (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length });
+        digest.update(bytes);
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 单个HTTP请求内所有LLM调用的耗时汇总
+ *
+ * 包括提示词精简去掉的字符和token数、在并发限制器中的排队时间、Ollama返回的模型加载/提示词评估/生成耗时及token数、
+ * 调用的总耗时，以及最后一次调用结束到响应写出之间的后处理（渲染）时间。
+ * 实例保存在请求属性中，由 {@code ServerTimingAdvice} 写入 Server-Timing 响应头和JSON结果的timing字段；
+ * 在其他线程上发起的调用通过 {@link LlmRequestContext} 关联到当前请求。
+ */
+public class LlmTiming {
+
+    /**
+     * 请求属性名
+     */
+    public static final String ATTRIBUTE = LlmTiming.class.getName();
+
+    private final long createdNanos = System.nanoTime();
+
+    private int calls;
+
+    private long queueNanos;
+
+    private long loadNanos;
+
+    private long promptEvalNanos;
+
+    private long promptEvalCount;
+
+    private long evalNanos;
+
+    private long evalCount;
+
+    private long llmNanos;
+
+    private long lastCallEndNanos;
+
+    private int normalizations;
+
+    private long normalizeNanos;
+
+    private long normalizedChars;
+
+    private long normalizedTokens;
+
+    /**
+     * 当前请求的耗时汇总，不存在时创建；不在请求线程中时返回一个不会被输出的独立实例
+     */
+    public static LlmTiming current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new LlmTiming();
+        }
+        // 锁请求对象而不是 getSessionMutex()：后者会创建HttpSession
+        Object mutex = attributes instanceof ServletRequestAttributes
+                ? ((ServletRequestAttributes) attributes).getRequest() : attributes;
+        synchronized (mutex) {
+            LlmTiming timing = (LlmTiming) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (timing == null) {
+                timing = new LlmTiming();
+                attributes.setAttribute(ATTRIBUTE, timing, RequestAttributes.SCOPE_REQUEST);
+            }
+            return timing;
+        }
+    }
+
+    public synchronized void recordQueueWait(long nanos) {
+        queueNanos += nanos;
+    }
+
+    /**
+     * 记录一次完成的生成
+     *
+     * @param response Ollama的响应（含耗时统计）
+     * @param wallNanos 从发出请求到收到完整响应的时间
+     */
+    public synchronized void recordCall(OllamaService.ChatResponse response, long wallNanos) {
+        if (response == null) {
+            return;
+        }
+        calls++;
+        loadNanos += response.getLoadDuration();
+        promptEvalNanos += response.getPromptEvalDuration();
+        promptEvalCount += response.getPromptEvalCount();
+        evalNanos += response.getEvalDuration();
+        evalCount += response.getEvalCount();
+        llmNanos += wallNanos;
+        lastCallEndNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录一次提示词精简
+     *
+     * @param removedChars 去掉的字符数
+     * @param removedTokens 去掉的预估token数
+     * @param nanos 精简耗时
+     */
+    public synchronized void recordNormalization(int removedChars, int removedTokens, long nanos) {
+        normalizations++;
+        normalizedChars += removedChars;
+        normalizedTokens += removedTokens;
+        normalizeNanos += nanos;
+    }
+
+    public synchronized int getCalls() {
+        return calls;
+    }
+
+    /**
+     * 最后一次调用结束到现在的时间，没有调用时为0
+     */
+    private long renderNanos(long now) {
+        return lastCallEndNanos == 0 ? 0 : now - lastCallEndNanos;
+    }
+
+    /**
+     * 各阶段耗时（毫秒）及token数
+     */
+    public synchronized Map<String, Object> toMap() {
+        long now = System.nanoTime();
+        Map<String, Object> timing = new LinkedHashMap<>();
+        timing.put("llmCalls", calls);
+        timing.put("queueMs", millis(queueNanos));
+        timing.put("loadMs", millis(loadNanos));
+        timing.put("promptEvalMs", millis(promptEvalNanos));
+        timing.put("promptTokens", promptEvalCount);
+        timing.put("evalMs", millis(evalNanos));
+        timing.put("evalTokens", evalCount);
+        timing.put("llmMs", millis(llmNanos));
+        timing.put("renderMs", millis(renderNanos(now)));
+        timing.put("totalMs", millis(now - createdNanos));
+        if (normalizations > 0) {
+            timing.put("normalizeMs", millis(normalizeNanos));
+            timing.put("removedChars", normalizedChars);
+            timing.put("removedTokens", normalizedTokens);
+        }
+        return timing;
+    }
+
+    /**
+     * Server-Timing 响应头的值
+     */
+    public synchronized String toServerTiming() {
+        long now = System.nanoTime();
+        String normalize = normalizations == 0 ? ""
+                : metric("normalize", normalizeNanos, "-" + normalizedChars + " chars, -" + normalizedTokens + " tokens") + ", ";
+        return normalize + metric("queue", queueNanos, null)
+                + ", " + metric("load", loadNanos, null)
+                + ", " + metric("prompt", promptEvalNanos, promptEvalCount + " tokens")
+                + ", " + metric("eval", evalNanos, evalCount + " tokens")
+                + ", " + metric("llm", llmNanos, calls + " calls")
+                + ", " + metric("render", renderNanos(now), null)
+                + ", " + metric("total", now - createdNanos, null);
+    }
+
+    private static String metric(String name, long nanos, String description) {
+        String value = name + ";dur=" + String.format(Locale.ROOT, "%.1f", nanos / 1_000_000.0);
+        return description == null ? value : value + ";desc=\"" + description + "\"";
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+}
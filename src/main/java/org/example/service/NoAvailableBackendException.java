@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * 没有可用的Ollama节点（全部不健康或已被摘除）时抛出，对应HTTP 503
+ */
+public class NoAvailableBackendException extends RuntimeException {
+
+    public NoAvailableBackendException(String message) {
+        super(message);
+    }
+}
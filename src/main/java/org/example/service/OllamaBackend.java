@@ -0,0 +1,146 @@
+package org.example.service;
+
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后端池中的一个Ollama节点及其路由状态
+ */
+public class OllamaBackend {
+
+    private final String name;
+
+    private final String url;
+
+    private final WebClient webClient;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * 模型最近一次在该节点上成功生成的时间
+     */
+    private final Map<String, Long> lastServedNanos = new ConcurrentHashMap<>();
+
+    private volatile boolean healthy = true;
+
+    /**
+     * /api/tags 返回的模型列表，尚未探测时为null
+     */
+    private volatile Set<String> models;
+
+    OllamaBackend(String name, String url, WebClient webClient, CircuitBreaker circuitBreaker) {
+        this.name = name;
+        this.url = url;
+        this.webClient = webClient;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public WebClient getWebClient() {
+        return webClient;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    /**
+     * 熔断器状态：CLOSED / OPEN / HALF_OPEN
+     */
+    public String getCircuitState() {
+        return circuitBreaker.getState().name();
+    }
+
+    /**
+     * 健康且熔断器允许调用时可参与路由
+     */
+    public boolean isAvailable() {
+        return healthy && circuitBreaker.isCallPermitted();
+    }
+
+    public Set<String> getModels() {
+        Set<String> current = models;
+        return current == null ? Collections.emptySet() : Collections.unmodifiableSet(current);
+    }
+
+    /**
+     * 节点上是否有该模型；尚未探测时视为有
+     */
+    boolean hasModel(String model) {
+        Set<String> current = models;
+        return current == null || current.contains(model);
+    }
+
+    /**
+     * 模型是否仍可能加载在该节点内存中
+     */
+    boolean isWarm(String model, long windowNanos) {
+        Long served = lastServedNanos.get(model);
+        return served != null && System.nanoTime() - served < windowNanos;
+    }
+
+    /**
+     * 占用熔断器的调用名额，成功后才计入在途请求
+     */
+    boolean tryBegin() {
+        if (!healthy || !circuitBreaker.tryAcquire()) {
+            return false;
+        }
+        outstanding.incrementAndGet();
+        return true;
+    }
+
+    void end() {
+        outstanding.decrementAndGet();
+    }
+
+    void recordSuccess(String model) {
+        circuitBreaker.onSuccess();
+        lastServedNanos.put(model, System.nanoTime());
+    }
+
+    void recordCancel() {
+        circuitBreaker.onCancel();
+    }
+
+    /**
+     * 记录一次失败
+     *
+     * @return 本次是否导致熔断器打开
+     */
+    boolean recordFailure() {
+        if (!circuitBreaker.onFailure()) {
+            return false;
+        }
+        lastServedNanos.clear();
+        return true;
+    }
+
+    void probeSucceeded(Set<String> models) {
+        this.models = models;
+        this.healthy = true;
+    }
+
+    void probeFailed() {
+        this.healthy = false;
+        lastServedNanos.clear();
+    }
+}
@@ -0,0 +1,446 @@
+package org.example.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.config.OllamaBackendProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Ollama后端节点池
+ *
+ * 按最少在途请求路由，并优先选择近期已加载该模型的节点（模型亲和）；后台定时请求 /api/tags
+ * 做主动健康检查，同时记录各节点可用的模型；每个节点有独立的熔断器，连续失败（含超时）达到阈值时
+ * 临时摘除。调用可指定截止时间，并可在耗时过长时向另一个节点发出对冲请求。
+ */
+public class OllamaBackendPool {
+
+    private static final Logger log = LoggerFactory.getLogger(OllamaBackendPool.class);
+
+    private final OllamaBackendProperties properties;
+
+    private final List<OllamaBackend> backends;
+
+    /**
+     * 各节点的耗时和错误指标，构造时注册，请求结束时不再经过注册表查找
+     */
+    private final Map<OllamaBackend, BackendMeters> meters;
+
+    /**
+     * 在途请求数相同时轮转起点，避免总是选中第一个节点
+     */
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    private final Counter hedgesIssued;
+
+    private final Counter hedgesWon;
+
+    private Disposable healthCheck;
+
+    public OllamaBackendPool(OllamaBackendProperties properties, List<OllamaBackendProperties.Endpoint> endpoints,
+                             WebClient.Builder webClientBuilder, MeterRegistry meterRegistry) {
+        this.properties = properties;
+
+        List<OllamaBackend> list = new ArrayList<>(endpoints.size());
+        Map<OllamaBackend, BackendMeters> meterMap = new IdentityHashMap<>();
+        for (OllamaBackendProperties.Endpoint endpoint : endpoints) {
+            String name = endpoint.getName() != null ? endpoint.getName() : hostAndPort(endpoint.getUrl());
+            OllamaBackendProperties.CircuitBreaker breaker = properties.getCircuitBreaker();
+            OllamaBackend backend = new OllamaBackend(name, endpoint.getUrl(),
+                    webClientBuilder.clone().baseUrl(endpoint.getUrl()).build(),
+                    new CircuitBreaker(breaker.getFailureThreshold(), breaker.getOpenDuration().toNanos(),
+                            breaker.getHalfOpenMaxCalls()));
+            list.add(backend);
+            meterMap.put(backend, new BackendMeters(name, meterRegistry));
+
+            Gauge.builder("ollama.backend.outstanding", backend, OllamaBackend::getOutstanding)
+                    .description("节点上的在途请求数")
+                    .tag("backend", name)
+                    .register(meterRegistry);
+            Gauge.builder("ollama.backend.available", backend, b -> b.isAvailable() ? 1 : 0)
+                    .description("节点是否参与路由（健康且未被摘除）")
+                    .tag("backend", name)
+                    .register(meterRegistry);
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("至少需要配置一个Ollama节点");
+        }
+        this.backends = Collections.unmodifiableList(list);
+        this.meters = meterMap;
+        this.hedgesIssued = Counter.builder("ollama.hedge.issued")
+                .description("发出的对冲请求数")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("ollama.hedge.won")
+                .description("对冲请求先于原请求返回的次数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动后台健康检查
+     */
+    public void start() {
+        Duration interval = properties.getHealthCheckInterval();
+        if (interval.isZero() || interval.isNegative()) {
+            return;
+        }
+        healthCheck = Flux.interval(Duration.ZERO, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> probeAll())
+                .subscribe();
+    }
+
+    public void close() {
+        if (healthCheck != null) {
+            healthCheck.dispose();
+        }
+    }
+
+    public List<OllamaBackend> getBackends() {
+        return backends;
+    }
+
+    /**
+     * 选择一个节点执行调用，调用结束（含取消）后更新节点状态
+     *
+     * @param model 请求的模型，用于亲和路由
+     * @param call 在选定节点的WebClient上发起的调用
+     */
+    public <T> Mono<T> execute(String model, Function<WebClient, Mono<T>> call) {
+        return execute(model, null, null, call);
+    }
+
+    /**
+     * 带截止时间和对冲的调用
+     *
+     * 超过hedgeDelay仍未返回时，向另一个可用节点发出相同请求，先返回值的一方生效，另一方被取消。
+     * 对冲请求发出前原请求失败时直接返回该错误；发出后一方失败不影响另一方，两方都失败时返回原请求的错误。
+     * 每次尝试都受同一个截止时间约束，超时计入节点失败。
+     *
+     * @param deadline 截止时间，为null时不限制
+     * @param hedgeDelay 对冲延迟，为null时不对冲
+     */
+    public <T> Mono<T> execute(String model, Duration deadline, Duration hedgeDelay,
+                               Function<WebClient, Mono<T>> call) {
+        return Mono.defer(() -> {
+            long deadlineAt = deadline != null ? System.nanoTime() + deadline.toNanos() : 0;
+            OllamaBackend primary = select(model, null);
+            if (hedgeDelay == null || backends.size() < 2) {
+                return attempt(primary, model, deadline, deadlineAt, call);
+            }
+            // 原请求在对冲发出前失败时取消等待中的对冲，不把失败变成一次延迟重试
+            Sinks.Empty<Void> primaryFailed = Sinks.empty();
+            Mono<T> first = attempt(primary, model, deadline, deadlineAt, call)
+                    .doOnError(error -> primaryFailed.tryEmitEmpty());
+            Mono<T> hedge = Mono.delay(hedgeDelay)
+                    .takeUntilOther(primaryFailed.asMono())
+                    .flatMap(tick -> {
+                        OllamaBackend secondary = trySelect(model, primary);
+                        if (secondary == null) {
+                            return Mono.<T>empty();
+                        }
+                        hedgesIssued.increment();
+                        return attempt(secondary, model, deadline, deadlineAt, call)
+                                .doOnNext(value -> hedgesWon.increment());
+                    });
+            return Mono.firstWithValue(first, hedge)
+                    // 两方都没有返回值：按来源顺序排列的错误中第一个是原请求的
+                    .onErrorMap(NoSuchElementException.class,
+                            error -> error.getCause() == null ? error : Exceptions.unwrapMultiple(error.getCause()).get(0));
+        });
+    }
+
+    /**
+     * 流式版本，整个流结束后才释放节点
+     */
+    public <T> Flux<T> executeMany(String model, Function<WebClient, Flux<T>> call) {
+        return executeMany(model, null, call);
+    }
+
+    /**
+     * 流式版本，firstItemDeadline内未收到第一个元素时失败并计入节点失败
+     */
+    public <T> Flux<T> executeMany(String model, Duration firstItemDeadline, Function<WebClient, Flux<T>> call) {
+        return Flux.defer(() -> {
+            OllamaBackend backend = select(model, null);
+            long start = System.nanoTime();
+            Flux<T> flux = call.apply(backend.getWebClient());
+            if (firstItemDeadline != null) {
+                flux = flux.timeout(Mono.delay(firstItemDeadline), item -> Mono.never(),
+                        Flux.error(() -> timeout(backend, firstItemDeadline)));
+            }
+            return flux
+                    .doOnComplete(() -> backend.recordSuccess(model))
+                    .doOnError(error -> onError(backend, error))
+                    .doFinally(signal -> end(backend, start, signal));
+        });
+    }
+
+    /**
+     * 在所有可用节点上各执行一次调用，用于预热等需要覆盖每个节点的场景
+     */
+    public <T> Flux<T> broadcast(String model, Function<WebClient, Mono<T>> call) {
+        return Flux.fromIterable(backends)
+                .filter(OllamaBackend::tryBegin)
+                .concatMap(backend -> track(backend, model, System.nanoTime(), call.apply(backend.getWebClient())));
+    }
+
+    private <T> Mono<T> attempt(OllamaBackend backend, String model, Duration deadline, long deadlineAt,
+                                Function<WebClient, Mono<T>> call) {
+        long start = System.nanoTime();
+        Mono<T> mono = call.apply(backend.getWebClient());
+        if (deadline != null) {
+            Duration remaining = Duration.ofNanos(Math.max(0, deadlineAt - start));
+            mono = mono.timeout(remaining, Mono.error(() -> timeout(backend, deadline)));
+        }
+        return track(backend, model, start, mono);
+    }
+
+    private <T> Mono<T> track(OllamaBackend backend, String model, long start, Mono<T> mono) {
+        return mono
+                .doOnSuccess(value -> backend.recordSuccess(model))
+                .doOnError(error -> onError(backend, error))
+                .doFinally(signal -> end(backend, start, signal));
+    }
+
+    /**
+     * 对所有节点执行一次健康检查
+     */
+    public Mono<Void> probeAll() {
+        return Flux.fromIterable(backends)
+                .flatMap(this::probe)
+                .then();
+    }
+
+    private Mono<Void> probe(OllamaBackend backend) {
+        return backend.getWebClient().get()
+                .uri("/api/tags")
+                .retrieve()
+                .bodyToMono(TagsResponse.class)
+                .timeout(properties.getHealthCheckTimeout())
+                .doOnNext(tags -> {
+                    if (!backend.isHealthy()) {
+                        log.info("Ollama节点恢复: {}", backend.getName());
+                    }
+                    backend.probeSucceeded(tags.modelNames());
+                })
+                .onErrorResume(e -> {
+                    if (backend.isHealthy()) {
+                        log.warn("Ollama节点健康检查失败: {} ({})", backend.getName(), e.getMessage());
+                    }
+                    backend.probeFailed();
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 选择节点并占用其调用名额，没有可用节点时抛出 {@link NoAvailableBackendException}
+     */
+    OllamaBackend select(String model, OllamaBackend exclude) {
+        OllamaBackend backend = trySelect(model, exclude);
+        if (backend == null) {
+            throw new NoAvailableBackendException("没有可用的Ollama节点");
+        }
+        return backend;
+    }
+
+    /**
+     * 在有该模型的可用节点中选择：已加载模型且负载不比最空闲节点高出affinitySlack的优先，
+     * 否则选在途请求最少的节点。熔断器半开名额被并发占用时换下一个节点。
+     */
+    private OllamaBackend trySelect(String model, OllamaBackend exclude) {
+        List<OllamaBackend> candidates = new ArrayList<>(backends.size());
+        for (OllamaBackend backend : backends) {
+            if (backend != exclude && backend.isAvailable() && backend.hasModel(model)) {
+                candidates.add(backend);
+            }
+        }
+        if (candidates.isEmpty()) {
+            for (OllamaBackend backend : backends) {
+                if (backend != exclude && backend.isAvailable()) {
+                    candidates.add(backend);
+                }
+            }
+        }
+        while (!candidates.isEmpty()) {
+            OllamaBackend backend = choose(model, candidates);
+            if (backend.tryBegin()) {
+                return backend;
+            }
+            candidates.remove(backend);
+        }
+        return null;
+    }
+
+    private OllamaBackend choose(String model, List<OllamaBackend> candidates) {
+        long windowNanos = properties.getAffinityWindow().toNanos();
+        int offset = Math.floorMod(roundRobin.getAndIncrement(), candidates.size());
+        OllamaBackend leastLoaded = null;
+        OllamaBackend warm = null;
+        for (int i = 0; i < candidates.size(); i++) {
+            OllamaBackend backend = candidates.get((offset + i) % candidates.size());
+            if (leastLoaded == null || backend.getOutstanding() < leastLoaded.getOutstanding()) {
+                leastLoaded = backend;
+            }
+            if (backend.isWarm(model, windowNanos)
+                    && (warm == null || backend.getOutstanding() < warm.getOutstanding())) {
+                warm = backend;
+            }
+        }
+        if (warm != null && warm.getOutstanding() <= leastLoaded.getOutstanding() + properties.getAffinitySlack()) {
+            return warm;
+        }
+        return leastLoaded;
+    }
+
+    private void end(OllamaBackend backend, long start, SignalType signal) {
+        backend.end();
+        if (signal == SignalType.CANCEL) {
+            backend.recordCancel();
+        }
+        BackendMeters backendMeters = meters.get(backend);
+        Timer timer = signal == SignalType.ON_ERROR ? backendMeters.failed
+                : signal == SignalType.CANCEL ? backendMeters.cancelled : backendMeters.succeeded;
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 客户端错误（4xx）说明请求本身有问题，不计入节点失败
+     */
+    private void onError(OllamaBackend backend, Throwable error) {
+        BackendMeters backendMeters = meters.get(backend);
+        backendMeters.errors(errorType(error)).increment();
+        if (error instanceof WebClientResponseException
+                && ((WebClientResponseException) error).getStatusCode().is4xxClientError()) {
+            return;
+        }
+        if (backend.recordFailure()) {
+            log.warn("Ollama节点熔断 {}: {} ({})", properties.getCircuitBreaker().getOpenDuration(),
+                    backend.getName(), error.getMessage());
+            backendMeters.circuitOpened.increment();
+        }
+    }
+
+    /**
+     * HTTP错误取状态码，其余取异常类名（超时、连接失败等）
+     */
+    private static String errorType(Throwable error) {
+        if (error instanceof WebClientResponseException) {
+            return String.valueOf(((WebClientResponseException) error).getRawStatusCode());
+        }
+        return error.getClass().getSimpleName();
+    }
+
+    private static GenerationTimeoutException timeout(OllamaBackend backend, Duration deadline) {
+        return new GenerationTimeoutException("Ollama节点 " + backend.getName() + " 在 " + deadline.getSeconds() + " 秒内未返回");
+    }
+
+    private static String hostAndPort(String url) {
+        URI uri = URI.create(url);
+        return uri.getPort() < 0 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+    }
+
+    /**
+     * 一个节点的指标；错误类型事先未知，按类型首次出现时注册
+     */
+    private static final class BackendMeters {
+
+        private final String backend;
+
+        private final MeterRegistry meterRegistry;
+
+        private final Timer succeeded;
+
+        private final Timer failed;
+
+        private final Timer cancelled;
+
+        private final Counter circuitOpened;
+
+        private final ConcurrentMap<String, Counter> errors = new ConcurrentHashMap<>();
+
+        private BackendMeters(String backend, MeterRegistry meterRegistry) {
+            this.backend = backend;
+            this.meterRegistry = meterRegistry;
+            this.succeeded = requests("success");
+            this.failed = requests("failure");
+            this.cancelled = requests("cancelled");
+            this.circuitOpened = Counter.builder("ollama.backend.circuit.opened")
+                    .description("节点熔断器打开的次数")
+                    .tag("backend", backend)
+                    .register(meterRegistry);
+        }
+
+        private Timer requests(String outcome) {
+            return Timer.builder("ollama.backend.requests")
+                    .description("各节点的请求耗时")
+                    .tag("backend", backend)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+
+        private Counter errors(String type) {
+            return errors.computeIfAbsent(type, key -> Counter.builder("ollama.errors")
+                    .description("Ollama调用错误数，按节点和错误类型区分")
+                    .tag("backend", backend)
+                    .tag("type", key)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * /api/tags 的响应
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class TagsResponse {
+        private List<Model> models;
+
+        public List<Model> getModels() { return models; }
+        public void setModels(List<Model> models) { this.models = models; }
+
+        Set<String> modelNames() {
+            Set<String> names = new HashSet<>();
+            if (models != null) {
+                for (Model model : models) {
+                    names.add(model.getName());
+                }
+            }
+            return names;
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class Model {
+        private String name;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+    }
+}
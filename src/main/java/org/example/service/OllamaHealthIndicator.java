@@ -0,0 +1,54 @@
+package org.example.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/health 中的 ollama 项
+ *
+ * 直接使用节点池定时探测的结果，不额外发起请求：至少一个节点可用且有配置的模型时为UP，
+ * 部分节点不可用时仍为UP但在details中列出各节点状态。
+ */
+@Component("ollama")
+public class OllamaHealthIndicator extends AbstractHealthIndicator {
+
+    private final OllamaBackendPool backendPool;
+
+    @Value("${ollama.model:qwen:0.5b}")
+    private String model;
+
+    public OllamaHealthIndicator(OllamaBackendPool backendPool) {
+        super("Ollama健康检查失败");
+        this.backendPool = backendPool;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        int available = 0;
+        for (OllamaBackend backend : backendPool.getBackends()) {
+            boolean usable = backend.isAvailable() && backend.hasModel(model);
+            if (usable) {
+                available++;
+            }
+            Map<String, Object> details = new LinkedHashMap<>();
+            details.put("url", backend.getUrl());
+            details.put("healthy", backend.isHealthy());
+            details.put("circuit", backend.getCircuitState());
+            details.put("outstanding", backend.getOutstanding());
+            details.put("models", backend.getModels());
+            builder.withDetail(backend.getName(), details);
+        }
+        builder.withDetail("model", model)
+                .withDetail("available", available + "/" + backendPool.getBackends().size());
+        if (available > 0) {
+            builder.up();
+        } else {
+            builder.down();
+        }
+    }
+}
@@ -1,231 +1,424 @@
 package org.example.service;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.config.ResilienceProperties;
+import org.example.config.StreamCoalescingProperties;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class OllamaService {
     
-    @Value("${ollama.base-url:http://localhost:11434}")
-    private String baseUrl;
-    
     @Value("${ollama.model:qwen:0.5b}")
     private String model;
     
-    private final WebClient webClient;
+    /**
+     * 请求结束后模型（及其KV缓存）在Ollama中保留的时间
+     */
+    @Value("${ollama.keep-alive:30m}")
+    private String keepAlive;
+    
+    private final OllamaBackendPool backendPool;
+    
+    private final LlmResponseCache responseCache;
+    
+    private final InFlightRequestCoalescer coalescer;
+    
+    private final AdaptiveConcurrencyLimiter limiter;
+    
+    private final ResilienceProperties resilience;
+    
+    private final StreamCoalescingProperties coalescing;
+    
+    private final Counter streamsCancelled;
+    
+    private final Counter tokensSaved;
+    
+    private final Counter streamedTokens;
+    
+    private final Counter streamedFrames;
     
-    public OllamaService() {
-        this.webClient = WebClient.builder()
-                .baseUrl("http://localhost:11434")
-                .build();
+    private final Timer timeToFirstToken;
+    
+    private final DistributionSummary blockThroughput;
+    
+    private final DistributionSummary streamThroughput;
+    
+    /**
+     * 各类别最近的生成耗时，用于计算对冲延迟
+     */
+    private final Map<RequestClass, LatencyTracker> latencies = new EnumMap<>(RequestClass.class);
+    
+    public OllamaService(OllamaBackendPool backendPool, LlmResponseCache responseCache,
+                         InFlightRequestCoalescer coalescer, AdaptiveConcurrencyLimiter limiter,
+                         ResilienceProperties resilience, StreamCoalescingProperties coalescing,
+                         MeterRegistry meterRegistry) {
+        this.backendPool = backendPool;
+        this.responseCache = responseCache;
+        this.coalescer = coalescer;
+        this.limiter = limiter;
+        this.resilience = resilience;
+        this.coalescing = coalescing;
+        for (RequestClass requestClass : RequestClass.values()) {
+            latencies.put(requestClass, new LatencyTracker(resilience.getHedge().getWindowSize()));
+        }
+        this.streamsCancelled = Counter.builder("ollama.stream.cancelled")
+                .description("客户端断开后被取消的流式生成数")
+                .register(meterRegistry);
+        this.tokensSaved = Counter.builder("ollama.stream.tokens.saved")
+                .description("流式生成被取消而未生成的预估token数")
+                .baseUnit("tokens")
+                .register(meterRegistry);
+        this.streamedTokens = Counter.builder("ollama.stream.tokens")
+                .description("流式输出的token数")
+                .register(meterRegistry);
+        this.streamedFrames = Counter.builder("ollama.stream.frames")
+                .description("流式输出的SSE内容帧数（合并后）")
+                .register(meterRegistry);
+        this.timeToFirstToken = Timer.builder("ollama.stream.ttft")
+                .description("流式生成从发起（含排队）到收到首个token的时间")
+                .register(meterRegistry);
+        this.blockThroughput = throughputSummary("block", meterRegistry);
+        this.streamThroughput = throughputSummary("stream", meterRegistry);
+    }
+    
+    private static DistributionSummary throughputSummary(String mode, MeterRegistry meterRegistry) {
+        return DistributionSummary.builder("ollama.generation.tokens.per.second")
+                .description("生成阶段每秒输出的token数")
+                .baseUnit("tokens/s")
+                .tag("mode", mode)
+                .register(meterRegistry);
     }
     
     public String chat(String message) {
-        try {
-            GenerateRequest request = new GenerateRequest();
-            request.setModel(model);
-            request.setPrompt(message);
-            request.setStream(false);
-            
-            return webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(GenerateResponse.class)
-                    .map(response -> response.getResponse())
-                    .block();
-        } catch (Exception e) {
-            return "抱歉，AI服务暂时不可用: " + e.getMessage();
-        }
+        return chatReactive(message).block();
     }
     
     public String chatWithSystemPrompt(String userMessage, String systemPrompt) {
-        try {
-            String fullPrompt = systemPrompt + "\n\n用户: " + userMessage + "\n\n助手: ";
-            
-            GenerateRequest request = new GenerateRequest();
-            request.setModel(model);
-            request.setPrompt(fullPrompt);
-            request.setStream(false);
-            
-            return webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToMono(GenerateResponse.class)
-                    .map(response -> response.getResponse())
-                    .block();
-        } catch (Exception e) {
-            return "抱歉，AI服务暂时不可用: " + e.getMessage();
+        return chatWithSystemPromptReactive(userMessage, systemPrompt).block();
+    }
+    
+    /**
+     * 聊天 - 响应式版本，不占用调用线程；调用失败时以异常结束，不会把错误信息当作回复内容
+     */
+    public Mono<String> chatReactive(String message) {
+        return cachedGenerate(null, message, RequestClass.INTERACTIVE);
+    }
+    
+    /**
+     * 带系统提示的聊天 - 响应式版本，不占用调用线程，调度类别按输入规模自动判断
+     */
+    public Mono<String> chatWithSystemPromptReactive(String userMessage, String systemPrompt) {
+        return chatWithSystemPromptReactive(userMessage, systemPrompt, null);
+    }
+    
+    /**
+     * 带系统提示的聊天 - 指定调度类别，为null时按输入规模自动判断
+     */
+    public Mono<String> chatWithSystemPromptReactive(String userMessage, String systemPrompt, RequestClass requestClass) {
+        return cachedGenerate(systemPrompt, userMessage, requestClass);
+    }
+    
+    /**
+     * 相同 (模型, 系统提示, 用户提示) 的请求优先从缓存返回，未命中时并发的相同请求合并为一次生成，
+     * 真正发往Ollama的调用受并发限制器约束，按类别和预估token成本公平排队；失败结果不会进入缓存
+     */
+    private Mono<String> cachedGenerate(String systemPrompt, String userMessage, RequestClass requestClass) {
+        String key = responseCache.key(model, systemPrompt, userMessage, null);
+        return responseCache.getOrGenerate(key, () -> {
+            int promptTokens = promptTokens(systemPrompt, userMessage);
+            RequestClass resolved = limiter.classify(requestClass, promptTokens);
+            long cost = limiter.estimateCost(resolved, promptTokens);
+            return coalescer.coalesce(key, () -> Mono.deferContextual(context -> {
+                LlmTiming timing = LlmRequestContext.timing(context);
+                long queued = System.nanoTime();
+                return limiter.execute(resolved, cost, () -> {
+                            timing.recordQueueWait(System.nanoTime() - queued);
+                            return generate(resolved, systemPrompt, userMessage, timing);
+                        })
+                        .map(response -> response.getContent());
+            }));
+        })
+                // 在请求线程上组装时带入耗时汇总和跳过缓存标记；在其他线程上组装时沿用外层绑定的值
+                .contextWrite(LlmRequestContext.bindCurrent());
+    }
+    
+    /**
+     * 受截止时间约束的一次生成，耗时超过该类别近期分位数时向另一个节点发出对冲请求；
+     * Ollama返回的各阶段耗时计入当前请求的 {@link LlmTiming}
+     */
+    private Mono<ChatResponse> generate(RequestClass requestClass, String systemPrompt, String userMessage, LlmTiming timing) {
+        ChatRequest request = buildRequest(systemPrompt, userMessage, false, null);
+        LatencyTracker latency = latencies.get(requestClass);
+        long start = System.nanoTime();
+        return backendPool.execute(model, resilience.deadlineOf(requestClass), hedgeDelay(latency),
+                        client -> chatCall(client, request))
+                .doOnSuccess(response -> {
+                    long elapsed = System.nanoTime() - start;
+                    latency.record(elapsed);
+                    timing.recordCall(response, elapsed);
+                    recordThroughput(blockThroughput, response);
+                });
+    }
+    
+    /**
+     * 按Ollama返回的 eval_count / eval_duration 记录生成速度
+     */
+    private static void recordThroughput(DistributionSummary throughput, ChatResponse response) {
+        if (response == null || response.getEvalDuration() <= 0) {
+            return;
         }
+        throughput.record(response.getEvalCount() * 1e9 / response.getEvalDuration());
+    }
+    
+    private Duration hedgeDelay(LatencyTracker latency) {
+        ResilienceProperties.Hedge hedge = resilience.getHedge();
+        if (!hedge.isEnabled() || latency.count() < hedge.getMinSamples()) {
+            return null;
+        }
+        long nanos = latency.percentile(hedge.getPercentile());
+        nanos = Math.max(hedge.getMinDelay().toNanos(), Math.min(hedge.getMaxDelay().toNanos(), nanos));
+        return Duration.ofNanos(nanos);
+    }
+    
+    private static int promptTokens(String systemPrompt, String userMessage) {
+        return TokenEstimator.estimate(systemPrompt) + TokenEstimator.estimate(userMessage);
     }
     
     /**
-     * 流式聊天
-     */
-    public void streamChat(String message, FluxSink<String> sink) {
-        try {
-            GenerateRequest request = new GenerateRequest();
-            request.setModel(model);
-            request.setPrompt(message);
-            request.setStream(true);
-            
-            webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToFlux(GenerateStreamResponse.class)
-                    .doOnNext(response -> {
-                        // 调试信息
-                        System.out.println("Received response: " + response.getResponse() + ", done: " + response.isDone());
-                    })
-                    .subscribe(
-                        response -> {
-                            if (response.getResponse() != null && !response.getResponse().isEmpty()) {
-                                String jsonChunk = "{\"type\":\"chunk\",\"content\":\"" + 
-                                    response.getResponse().replace("\"", "\\\"").replace("\n", "\\n") + "\"}";
-                                sink.next("data: " + jsonChunk + "\n\n");
-                            }
-                        },
-                        error -> {
-                            System.err.println("Stream error: " + error.getMessage());
-                            String errorJson = "{\"type\":\"error\",\"message\":\"" + error.getMessage() + "\"}";
-                            sink.next("data: " + errorJson + "\n\n");
-                            sink.complete();
-                        },
-                        () -> {
-                            System.out.println("Stream completed");
-                            // 发送结束标记
-                            sink.next("data: {\"type\":\"end\"}\n\n");
-                            sink.complete();
-                        }
-                    );
-        } catch (Exception e) {
-            System.err.println("Stream exception: " + e.getMessage());
-            String errorJson = "{\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}";
-            sink.next("data: " + errorJson + "\n\n");
-            sink.complete();
+     * 直接调用 /api/chat，不经过缓存与请求合并
+     *
+     * 系统提示作为独立的system消息发送，相同系统提示渲染出的提示词前缀完全一致，
+     * Ollama只需评估用户部分的token。
+     */
+    public Mono<ChatResponse> rawChat(String systemPrompt, String userMessage, Map<String, Object> options) {
+        ChatRequest request = buildRequest(systemPrompt, userMessage, false, options);
+        return backendPool.execute(model, client -> chatCall(client, request));
+    }
+    
+    /**
+     * 预热系统提示：在每个可用节点上只发送system消息并生成1个token，使其KV缓存驻留在各节点中
+     */
+    public Flux<ChatResponse> warmUp(String systemPrompt) {
+        Map<String, Object> options = new HashMap<>();
+        options.put("num_predict", 1);
+        ChatRequest request = buildRequest(systemPrompt, null, false, options);
+        return backendPool.broadcast(model, client -> chatCall(client, request));
+    }
+    
+    private static Mono<ChatResponse> chatCall(WebClient client, ChatRequest request) {
+        return client.post()
+                .uri("/api/chat")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(ChatResponse.class);
+    }
+    
+    private ChatRequest buildRequest(String systemPrompt, String userMessage, boolean stream, Map<String, Object> options) {
+        List<ChatMessage> messages = new ArrayList<>(2);
+        if (systemPrompt != null) {
+            messages.add(new ChatMessage("system", systemPrompt));
+        }
+        if (userMessage != null) {
+            messages.add(new ChatMessage("user", userMessage));
         }
+        
+        ChatRequest request = new ChatRequest();
+        request.setModel(model);
+        request.setMessages(messages);
+        request.setStream(stream);
+        request.setKeepAlive(keepAlive);
+        request.setOptions(options);
+        return request;
+    }
+    
+    /**
+     * 流式聊天，返回SSE数据帧
+     *
+     * 订阅者取消（客户端断开）时取消会沿调用链传到WebClient，关闭与Ollama的连接并停止生成。
+     */
+    public Flux<String> streamChat(String message) {
+        return toSseFrames(streamTokens(null, message));
     }
     
     /**
      * 流式聊天 - 响应式版本
      */
     public Flux<String> streamChatReactive(String message) {
-        try {
-            GenerateRequest request = new GenerateRequest();
-            request.setModel(model);
-            request.setPrompt(message);
-            request.setStream(true);
-            
-            return webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToFlux(GenerateStreamResponse.class)
-                    .map(response -> response.getResponse() != null ? response.getResponse() : "")
-                    .filter(chunk -> !chunk.isEmpty())
-                    .onErrorResume(e -> Flux.just("错误: " + e.getMessage()));
-        } catch (Exception e) {
-            return Flux.just("错误: " + e.getMessage());
+        return streamTokens(null, message);
+    }
+    
+    /**
+     * 流式聊天（带系统提示），返回SSE数据帧
+     */
+    public Flux<String> streamChatWithSystemPrompt(String userMessage, String systemPrompt) {
+        return toSseFrames(streamTokens(systemPrompt, userMessage));
+    }
+    
+    /**
+     * token序列转换为SSE数据帧：相邻token按配置合并为chunk帧，正常结束时追加end帧，出错时以error帧结束
+     */
+    private Flux<String> toSseFrames(Flux<String> tokens) {
+        Flux<String> chunks = tokens.doOnNext(token -> streamedTokens.increment());
+        if (coalescing.isEnabled()) {
+            chunks = TokenCoalescer.coalesce(chunks, coalescing.getMaxDelay(), coalescing.getMaxChars());
         }
+        return chunks
+                .doOnNext(chunk -> streamedFrames.increment())
+                .map(SseFrameEncoder::chunk)
+                // 发送结束标记
+                .concatWith(Mono.fromSupplier(SseFrameEncoder::end))
+                .onErrorResume(error -> Mono.just(SseFrameEncoder.error(error.getMessage())));
     }
     
     /**
-     * 流式聊天（带系统提示）
-     */
-    public void streamChatWithSystemPrompt(String userMessage, String systemPrompt, FluxSink<String> sink) {
-        try {
-            String fullPrompt = systemPrompt + "\n\n用户: " + userMessage + "\n\n助手: ";
-            
-            GenerateRequest request = new GenerateRequest();
-            request.setModel(model);
-            request.setPrompt(fullPrompt);
-            request.setStream(true);
-            
-            webClient.post()
-                    .uri("/api/generate")
-                    .bodyValue(request)
-                    .retrieve()
-                    .bodyToFlux(GenerateStreamResponse.class)
-                    .subscribe(
-                        response -> {
-                            if (response.getResponse() != null && !response.getResponse().isEmpty()) {
-                                String jsonChunk = "{\"type\":\"chunk\",\"content\":\"" + 
-                                    response.getResponse().replace("\"", "\\\"").replace("\n", "\\n") + "\"}";
-                                sink.next("data: " + jsonChunk + "\n\n");
-                            }
-                        },
-                        error -> {
-                            String errorJson = "{\"type\":\"error\",\"message\":\"" + error.getMessage() + "\"}";
-                            sink.next("data: " + errorJson + "\n\n");
-                            sink.complete();
-                        },
-                        () -> {
-                            // 发送结束标记
-                            sink.next("data: {\"type\":\"end\"}\n\n");
-                            sink.complete();
+     * 流式生成的token序列，相同请求并发到达时共享同一个生成
+     *
+     * 所有订阅者都取消后上游生成才会被取消，此时按该类别预估的输出token数减去已生成的数量
+     * 记录节省的token数。
+     */
+    private Flux<String> streamTokens(String systemPrompt, String userMessage) {
+        String key = responseCache.key(model, systemPrompt, userMessage, null);
+        int promptTokens = promptTokens(systemPrompt, userMessage);
+        RequestClass requestClass = limiter.classify(RequestClass.INTERACTIVE, promptTokens);
+        long cost = limiter.estimateCost(requestClass, promptTokens);
+        long expectedOutputTokens = cost - promptTokens;
+        return coalescer.coalesceStream(key, () -> Flux.defer(() -> {
+            AtomicLong generated = new AtomicLong();
+            long start = System.nanoTime();
+            return limiter.executeMany(requestClass, cost,
+                    () -> backendPool.executeMany(model, resilience.deadlineOf(requestClass), client -> OllamaStreamDecoder.decode(
+                            client.post()
+                                    .uri("/api/chat")
+                                    .bodyValue(buildRequest(systemPrompt, userMessage, true, null))
+                                    .retrieve()
+                                    .bodyToFlux(DataBuffer.class),
+                            done -> recordThroughput(streamThroughput, done))))
+                    .doOnNext(chunk -> {
+                        if (generated.getAndIncrement() == 0) {
+                            timeToFirstToken.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
                         }
-                    );
-        } catch (Exception e) {
-            String errorJson = "{\"type\":\"error\",\"message\":\"" + e.getMessage() + "\"}";
-            sink.next("data: " + errorJson + "\n\n");
-            sink.complete();
-        }
+                    })
+                    .doOnCancel(() -> {
+                        streamsCancelled.increment();
+                        tokensSaved.increment(Math.max(0, expectedOutputTokens - generated.get()));
+                    });
+        }));
     }
     
     // 内部类用于JSON序列化
-    public static class GenerateRequest {
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ChatRequest {
         private String model;
-        private String prompt;
+        private List<ChatMessage> messages;
         private boolean stream;
+        @JsonProperty("keep_alive")
+        private String keepAlive;
+        private Map<String, Object> options;
         
         public String getModel() { return model; }
         public void setModel(String model) { this.model = model; }
         
-        public String getPrompt() { return prompt; }
-        public void setPrompt(String prompt) { this.prompt = prompt; }
+        public List<ChatMessage> getMessages() { return messages; }
+        public void setMessages(List<ChatMessage> messages) { this.messages = messages; }
         
         public boolean isStream() { return stream; }
         public void setStream(boolean stream) { this.stream = stream; }
+        
+        public String getKeepAlive() { return keepAlive; }
+        public void setKeepAlive(String keepAlive) { this.keepAlive = keepAlive; }
+        
+        public Map<String, Object> getOptions() { return options; }
+        public void setOptions(Map<String, Object> options) { this.options = options; }
     }
     
-    public static class GenerateResponse {
-        private String response;
+    public static class ChatMessage {
+        private String role;
+        private String content;
+        
+        public ChatMessage() {
+        }
+        
+        public ChatMessage(String role, String content) {
+            this.role = role;
+            this.content = content;
+        }
+        
+        public String getRole() { return role; }
+        public void setRole(String role) { this.role = role; }
         
-        public String getResponse() { return response; }
-        public void setResponse(String response) { this.response = response; }
+        public String getContent() { return content; }
+        public void setContent(String content) { this.content = content; }
     }
     
-    public static class GenerateStreamResponse {
-        private String response;
+    /**
+     * /api/chat 的响应，流式时每个token一条，最后一条 done=true 并带有耗时统计
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ChatResponse {
+        private ChatMessage message;
         private boolean done;
-        private String model;
-        private String created_at;
-        private String done_reason;
+        @JsonProperty("prompt_eval_count")
+        private int promptEvalCount;
+        @JsonProperty("prompt_eval_duration")
+        private long promptEvalDuration;
+        @JsonProperty("eval_count")
+        private int evalCount;
+        @JsonProperty("eval_duration")
+        private long evalDuration;
+        @JsonProperty("load_duration")
+        private long loadDuration;
+        @JsonProperty("total_duration")
+        private long totalDuration;
+        
+        /**
+         * 本条响应中的文本，没有内容时返回空字符串
+         */
+        public String getContent() {
+            return message != null && message.getContent() != null ? message.getContent() : "";
+        }
         
-        public String getResponse() { return response; }
-        public void setResponse(String response) { this.response = response; }
+        public ChatMessage getMessage() { return message; }
+        public void setMessage(ChatMessage message) { this.message = message; }
         
         public boolean isDone() { return done; }
         public void setDone(boolean done) { this.done = done; }
         
-        public String getModel() { return model; }
-        public void setModel(String model) { this.model = model; }
+        public int getPromptEvalCount() { return promptEvalCount; }
+        public void setPromptEvalCount(int promptEvalCount) { this.promptEvalCount = promptEvalCount; }
+        
+        public long getPromptEvalDuration() { return promptEvalDuration; }
+        public void setPromptEvalDuration(long promptEvalDuration) { this.promptEvalDuration = promptEvalDuration; }
+        
+        public int getEvalCount() { return evalCount; }
+        public void setEvalCount(int evalCount) { this.evalCount = evalCount; }
+        
+        public long getEvalDuration() { return evalDuration; }
+        public void setEvalDuration(long evalDuration) { this.evalDuration = evalDuration; }
         
-        public String getCreated_at() { return created_at; }
-        public void setCreated_at(String created_at) { this.created_at = created_at; }
+        public long getLoadDuration() { return loadDuration; }
+        public void setLoadDuration(long loadDuration) { this.loadDuration = loadDuration; }
         
-        public String getDone_reason() { return done_reason; }
-        public void setDone_reason(String done_reason) { this.done_reason = done_reason; }
+        public long getTotalDuration() { return totalDuration; }
+        public void setTotalDuration(long totalDuration) { this.totalDuration = totalDuration; }
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
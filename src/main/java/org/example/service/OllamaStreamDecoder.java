@@ -0,0 +1,226 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Ollama流式响应（NDJSON）的增量解码器
+ *
+ * 用Jackson非阻塞解析器直接读取网络缓冲区，每行只取出token文本（/api/chat 的 message.content 或
+ * /api/generate 的 response）、done标记以及最后一行的耗时统计，不为每个token构造响应对象。
+ * 每个缓冲区的字节复制到同一个可复用数组后立即释放。
+ */
+final class OllamaStreamDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+
+    private final ByteArrayFeeder feeder;
+
+    private final Consumer<OllamaService.ChatResponse> onDone;
+
+    private byte[] input = new byte[8192];
+
+    private int depth;
+
+    private boolean inMessage;
+
+    private String field;
+
+    private String content;
+
+    private OllamaService.ChatResponse stats;
+
+    private OllamaStreamDecoder(Consumer<OllamaService.ChatResponse> onDone) {
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        this.onDone = onDone;
+    }
+
+    /**
+     * 把响应体解码为token序列，空token被跳过
+     */
+    static Flux<String> decode(Flux<DataBuffer> body) {
+        return decode(body, null);
+    }
+
+    /**
+     * 把响应体解码为token序列
+     *
+     * @param onDone 收到 done=true 的最后一行时回调，携带耗时统计，可为null
+     */
+    static Flux<String> decode(Flux<DataBuffer> body, Consumer<OllamaService.ChatResponse> onDone) {
+        return Flux.defer(() -> {
+            OllamaStreamDecoder decoder = new OllamaStreamDecoder(onDone);
+            return body.concatMapIterable(decoder::feed)
+                    .concatWith(Flux.defer(decoder::finish))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> decoder.close());
+        });
+    }
+
+    private List<String> feed(DataBuffer buffer) {
+        int length = buffer.readableByteCount();
+        try {
+            if (input.length < length) {
+                input = new byte[Math.max(length, input.length * 2)];
+            }
+            buffer.read(input, 0, length);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        try {
+            feeder.feedInput(input, 0, length);
+            return parseAvailable();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Flux<String> finish() {
+        feeder.endOfInput();
+        try {
+            return Flux.fromIterable(parseAvailable());
+        } catch (IOException e) {
+            // 连接在一行中途断开
+            return Flux.error(new IllegalStateException("Ollama流式响应不完整", e));
+        }
+    }
+
+    private void close() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // 解析器只持有内存中的数据
+        }
+    }
+
+    /**
+     * 解析已送入的所有完整token，返回本批中完整行携带的文本
+     */
+    private List<String> parseAvailable() throws IOException {
+        List<String> tokens = null;
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            switch (token) {
+                case START_OBJECT:
+                    depth++;
+                    inMessage = depth == 2 && "message".equals(field);
+                    field = null;
+                    break;
+                case START_ARRAY:
+                    depth++;
+                    field = null;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    if (depth == 1) {
+                        inMessage = false;
+                    } else if (depth == 0) {
+                        String text = endLine();
+                        if (text != null) {
+                            if (tokens == null) {
+                                tokens = new ArrayList<>(4);
+                            }
+                            tokens.add(text);
+                        }
+                    }
+                    break;
+                case FIELD_NAME:
+                    field = parser.getCurrentName();
+                    break;
+                case VALUE_STRING:
+                    onString();
+                    break;
+                case VALUE_TRUE:
+                    if (depth == 1 && "done".equals(field)) {
+                        stats().setDone(true);
+                    }
+                    break;
+                case VALUE_NUMBER_INT:
+                    if (depth == 1) {
+                        onNumber(parser.getLongValue());
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return tokens == null ? Collections.emptyList() : tokens;
+    }
+
+    private void onString() throws IOException {
+        if ((inMessage && depth == 2 && "content".equals(field)) || (depth == 1 && "response".equals(field))) {
+            content = parser.getText();
+        } else if (depth == 1 && "error".equals(field)) {
+            throw new IllegalStateException("Ollama返回错误: " + parser.getText());
+        }
+    }
+
+    private void onNumber(long value) {
+        if (field == null) {
+            return;
+        }
+        switch (field) {
+            case "prompt_eval_count":
+                stats().setPromptEvalCount((int) value);
+                break;
+            case "prompt_eval_duration":
+                stats().setPromptEvalDuration(value);
+                break;
+            case "eval_count":
+                stats().setEvalCount((int) value);
+                break;
+            case "eval_duration":
+                stats().setEvalDuration(value);
+                break;
+            case "load_duration":
+                stats().setLoadDuration(value);
+                break;
+            case "total_duration":
+                stats().setTotalDuration(value);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 一行结束：返回其中的文本，done行回调耗时统计
+     */
+    private String endLine() {
+        String text = content;
+        content = null;
+        field = null;
+        if (stats != null && stats.isDone() && onDone != null) {
+            onDone.accept(stats);
+        }
+        stats = null;
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    private OllamaService.ChatResponse stats() {
+        if (stats == null) {
+            stats = new OllamaService.ChatResponse();
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.service;
+
+/**
+ * 生成请求的调度类别
+ */
+public enum RequestClass {
+
+    /**
+     * 交互式对话，要求首token延迟低
+     */
+    INTERACTIVE,
+
+    /**
+     * 标书章节、目录等中等长度的生成
+     */
+    SECTION,
+
+    /**
+     * 整份标书生成、全文分析等长任务
+     */
+    BULK
+}
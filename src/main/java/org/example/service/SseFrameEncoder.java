@@ -0,0 +1,73 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+/**
+ * 流式接口的SSE数据帧编码
+ *
+ * 每一帧形如 {@code data: {"type":"chunk","content":"..."}\n\n}。字段值按JSON规范转义
+ * （引号、反斜杠及控制字符），整帧在一个按长度预估容量的StringBuilder中一次写出，
+ * 每个token只分配这个缓冲区和最终的字符串。
+ */
+public final class SseFrameEncoder {
+
+    private static final String PREFIX = "data: {\"type\":\"";
+
+    private static final String SUFFIX = "}\n\n";
+
+    private static final String END_FRAME = PREFIX + "end\"" + SUFFIX;
+
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private SseFrameEncoder() {
+    }
+
+    /**
+     * 内容分片帧
+     */
+    public static String chunk(CharSequence content) {
+        return frame("chunk", "content", content);
+    }
+
+    /**
+     * 错误帧
+     */
+    public static String error(CharSequence message) {
+        return frame("error", "message", message);
+    }
+
+    /**
+     * 结束帧
+     */
+    public static String end() {
+        return END_FRAME;
+    }
+
+    /**
+     * 已序列化为JSON对象的数据帧，对象中应带有type字段
+     */
+    public static String data(String json) {
+        return "data: " + json + "\n\n";
+    }
+
+    /**
+     * 指定类型的数据帧，fields依次为字段名和字段值，值为null时输出空字符串
+     */
+    public static String frame(String type, CharSequence... fields) {
+        int capacity = PREFIX.length() + type.length() + SUFFIX.length() + 1;
+        for (CharSequence field : fields) {
+            // 转义通常只让少数字符变长，额外预留1/8
+            capacity += field == null ? 6 : field.length() + (field.length() >> 3) + 6;
+        }
+        StringBuilder frame = new StringBuilder(capacity);
+        frame.append(PREFIX).append(type).append('"');
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            frame.append(",\"").append(fields[i]).append("\":\"");
+            if (fields[i + 1] != null) {
+                ENCODER.quoteAsString(fields[i + 1], frame);
+            }
+            frame.append('"');
+        }
+        return frame.append(SUFFIX).toString();
+    }
+}
@@ -0,0 +1,85 @@
+package org.example.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 固定系统提示的注册表
+ *
+ * 各业务服务启动时注册自己使用的系统提示。应用就绪后逐个预热，让Ollama在keep-alive期间保留
+ * 这些前缀的KV缓存，后续请求只需评估用户部分；预热时记录的prompt_eval_count即为每次请求可省去的token数。
+ */
+@Service
+public class SystemPromptRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SystemPromptRegistry.class);
+
+    private final Map<String, String> prompts = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final Map<String, Integer> prefixTokens = new ConcurrentHashMap<>();
+
+    @Autowired
+    private OllamaService ollamaService;
+
+    @Value("${ollama.prompt-cache.warm-up:true}")
+    private boolean warmUpEnabled;
+
+    /**
+     * 注册系统提示
+     *
+     * @param name 名称，一般为 服务名.方法名
+     * @param systemPrompt 系统提示内容
+     */
+    public void register(String name, String systemPrompt) {
+        prompts.put(name, systemPrompt);
+    }
+
+    /**
+     * 已注册的系统提示
+     */
+    public Map<String, String> getPrompts() {
+        synchronized (prompts) {
+            return new LinkedHashMap<>(prompts);
+        }
+    }
+
+    /**
+     * 预热时测得的各系统提示前缀token数
+     */
+    public Map<String, Integer> getPrefixTokens() {
+        return new LinkedHashMap<>(prefixTokens);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (warmUpEnabled) {
+            warmUpAll().subscribe();
+        }
+    }
+
+    /**
+     * 依次预热所有系统提示，单个失败不影响其余
+     */
+    public Mono<Void> warmUpAll() {
+        return Flux.fromIterable(getPrompts().entrySet())
+                .concatMap(entry -> ollamaService.warmUp(entry.getValue())
+                        .doOnNext(response -> prefixTokens.put(entry.getKey(), response.getPromptEvalCount()))
+                        .onErrorResume(e -> {
+                            log.warn("系统提示预热失败: {} ({})", entry.getKey(), e.getMessage());
+                            return Mono.empty();
+                        }))
+                .then();
+    }
+}
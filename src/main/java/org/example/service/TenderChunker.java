@@ -0,0 +1,211 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 按标题把长招标文件切分为不超过指定token数的块
+ *
+ * 以标题行（识别规则见 {@link TenderStructureIndex}）为切分点，把相邻小节依次装入同一块；
+ * 单个小节超出上限时按行切分，单行仍超出时按字符切分。
+ * 各块保留块起始处所在的章标题，分析时可作为上下文提示。
+ */
+public final class TenderChunker {
+
+    /**
+     * 中文字符的token估算系数，按字符硬切分时据此保证不超出上限
+     */
+    private static final double MAX_TOKENS_PER_CHAR = 0.7;
+
+    private final int maxChunkTokens;
+
+    public TenderChunker(int maxChunkTokens) {
+        if (maxChunkTokens <= 0) {
+            throw new IllegalArgumentException("maxChunkTokens必须大于0");
+        }
+        this.maxChunkTokens = maxChunkTokens;
+    }
+
+    /**
+     * 切分招标文件
+     *
+     * @param text 招标文件内容
+     * @return 按原文顺序排列的块，拼接后与原文一致
+     */
+    public List<Chunk> split(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Piece> pieces = new ArrayList<>();
+        for (Piece section : sections(text)) {
+            if (section.tokens <= maxChunkTokens) {
+                pieces.add(section);
+            } else {
+                splitSection(section, pieces);
+            }
+        }
+
+        List<Chunk> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        String heading = null;
+        int tokens = 0;
+        for (Piece piece : pieces) {
+            if (current.length() > 0 && tokens + piece.tokens > maxChunkTokens) {
+                chunks.add(new Chunk(chunks.size(), heading, current.toString()));
+                current.setLength(0);
+                tokens = 0;
+            }
+            if (current.length() == 0) {
+                heading = piece.opensChapter ? null : piece.chapter;
+            }
+            current.append(piece.text);
+            tokens += piece.tokens;
+        }
+        if (current.length() > 0) {
+            chunks.add(new Chunk(chunks.size(), heading, current.toString()));
+        }
+        return chunks;
+    }
+
+    /**
+     * 按标题行切分为小节，第一个标题之前的内容单独成节
+     */
+    private static List<Piece> sections(String text) {
+        List<Piece> sections = new ArrayList<>();
+        String chapter = null;
+        int sectionStart = 0;
+        boolean opensChapter = false;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            lineEnd = lineEnd < 0 ? text.length() : lineEnd + 1;
+            String line = text.substring(lineStart, lineEnd);
+            int level = TenderStructureIndex.headingLevel(line);
+            if (level > 0) {
+                if (lineStart > sectionStart) {
+                    sections.add(new Piece(text.substring(sectionStart, lineStart), chapter, opensChapter));
+                }
+                sectionStart = lineStart;
+                opensChapter = level == 1;
+                if (opensChapter) {
+                    chapter = line.trim();
+                }
+            }
+            lineStart = lineEnd;
+        }
+        if (sectionStart < text.length()) {
+            sections.add(new Piece(text.substring(sectionStart), chapter, opensChapter));
+        }
+        return sections;
+    }
+
+    /**
+     * 超出上限的小节按行装入若干片段，单行超出上限时按字符切分
+     */
+    private void splitSection(Piece section, List<Piece> pieces) {
+        int maxChars = Math.max(1, (int) (maxChunkTokens / MAX_TOKENS_PER_CHAR));
+        String text = section.text;
+        StringBuilder current = new StringBuilder();
+        int tokens = 0;
+        boolean first = true;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            lineEnd = lineEnd < 0 ? text.length() : lineEnd + 1;
+            String line = text.substring(lineStart, lineEnd);
+            int lineTokens = TokenEstimator.estimate(line);
+            if (lineTokens > maxChunkTokens) {
+                for (int from = 0; from < line.length(); from += maxChars) {
+                    String part = line.substring(from, Math.min(line.length(), from + maxChars));
+                    int partTokens = TokenEstimator.estimate(part);
+                    if (current.length() > 0 && tokens + partTokens > maxChunkTokens) {
+                        pieces.add(new Piece(current.toString(), tokens, section.chapter, first && section.opensChapter));
+                        current.setLength(0);
+                        tokens = 0;
+                        first = false;
+                    }
+                    current.append(part);
+                    tokens += partTokens;
+                }
+            } else {
+                if (current.length() > 0 && tokens + lineTokens > maxChunkTokens) {
+                    pieces.add(new Piece(current.toString(), tokens, section.chapter, first && section.opensChapter));
+                    current.setLength(0);
+                    tokens = 0;
+                    first = false;
+                }
+                current.append(line);
+                tokens += lineTokens;
+            }
+            lineStart = lineEnd;
+        }
+        if (current.length() > 0) {
+            pieces.add(new Piece(current.toString(), tokens, section.chapter, first && section.opensChapter));
+        }
+    }
+
+    /**
+     * 切分过程中的一段连续原文
+     */
+    private static final class Piece {
+
+        private final String text;
+
+        private final int tokens;
+
+        /**
+         * 所在的章标题
+         */
+        private final String chapter;
+
+        /**
+         * 是否以章标题开头
+         */
+        private final boolean opensChapter;
+
+        private Piece(String text, String chapter, boolean opensChapter) {
+            this(text, TokenEstimator.estimate(text), chapter, opensChapter);
+        }
+
+        private Piece(String text, int tokens, String chapter, boolean opensChapter) {
+            this.text = text;
+            this.tokens = tokens;
+            this.chapter = chapter;
+            this.opensChapter = opensChapter;
+        }
+    }
+
+    /**
+     * 切分得到的一块
+     */
+    public static final class Chunk {
+
+        private final int index;
+
+        private final String heading;
+
+        private final String text;
+
+        private Chunk(int index, String heading, String text) {
+            this.index = index;
+            this.heading = heading;
+            this.text = text;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * 块起始处所在的章标题；块以章标题开头或文件没有章标题时为null
+         */
+        public String getHeading() {
+            return heading;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.example.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 招标文件字段提取：注册一组 (字段, 标签, 取值语法) 规则，一次扫描找出所有标签并按语法截取其后的值
+ *
+ * 标签用 {@link AhoCorasickAutomaton} 匹配，扫描代价与字段数量无关。每个字段取文中最靠前的、
+ * 取值语法能够匹配的标签；同一位置有多个标签时取最长的。标签与值之间的空白和冒号会被跳过。
+ * 构建后不可变、线程安全。
+ */
+public final class TenderFieldExtractor {
+
+    /**
+     * 标签后取值的语法
+     */
+    public enum ValueType {
+
+        /**
+         * 到行尾为止的一行文本
+         */
+        LINE,
+
+        /**
+         * 数字金额，可带千分位、小数点和“万”“元”单位，如 1,250.00万元
+         */
+        AMOUNT,
+
+        /**
+         * 一行文本及其后最多 {@value #PARAGRAPH_EXTRA_LINES} 行
+         */
+        PARAGRAPH
+    }
+
+    /**
+     * PARAGRAPH 在首行之后最多再取的行数
+     */
+    public static final int PARAGRAPH_EXTRA_LINES = 10;
+
+    private final List<String> fields = new ArrayList<>();
+
+    private final List<ValueType> valueTypes = new ArrayList<>();
+
+    /**
+     * 每个标签所属字段的下标
+     */
+    private final int[] labelFields;
+
+    private final List<String> labels;
+
+    /**
+     * 每个字段最长标签的长度，用于判断最靠前的匹配何时已确定
+     */
+    private final int[] maxLabelLengths;
+
+    private final AhoCorasickAutomaton automaton;
+
+    private TenderFieldExtractor(Builder builder) {
+        List<String> allLabels = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        maxLabelLengths = new int[builder.fields.size()];
+        for (int f = 0; f < builder.fields.size(); f++) {
+            Builder.Rule rule = builder.fields.get(f);
+            fields.add(rule.field);
+            valueTypes.add(rule.valueType);
+            for (String label : rule.labels) {
+                allLabels.add(label);
+                owners.add(f);
+                maxLabelLengths[f] = Math.max(maxLabelLengths[f], label.length());
+            }
+        }
+        this.labels = Collections.unmodifiableList(allLabels);
+        this.labelFields = owners.stream().mapToInt(Integer::intValue).toArray();
+        this.automaton = new AhoCorasickAutomaton(allLabels);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 每个字段最靠前的一次匹配，按注册顺序排列；未找到的字段不出现在结果中。
+     * 所有字段都已确定后提前结束扫描。
+     */
+    public Map<String, FieldMatch> extract(CharSequence text) {
+        FieldMatch[] best = new FieldMatch[fields.size()];
+        int[] remaining = {fields.size()};
+        automaton.scan(text, 0, (label, start, end) -> {
+            int field = labelFields[label];
+            FieldMatch current = best[field];
+            if (current == null || start < current.getLabelStart()
+                    || (start == current.getLabelStart() && end > current.getLabelEnd())) {
+                FieldMatch match = match(text, field, label, start, end);
+                if (match != null) {
+                    if (current == null) {
+                        remaining[0]--;
+                    }
+                    best[field] = match;
+                }
+            }
+            return remaining[0] > 0 || !settled(best, end);
+        });
+        Map<String, FieldMatch> result = new LinkedHashMap<>();
+        for (FieldMatch match : best) {
+            if (match != null) {
+                result.put(match.getField(), match);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 所有字段的所有匹配，按标签结束位置排列，结束位置相同时起始位置靠前的在前
+     */
+    public List<FieldMatch> extractAll(CharSequence text) {
+        List<FieldMatch> result = new ArrayList<>();
+        automaton.scan(text, 0, (label, start, end) -> {
+            FieldMatch match = match(text, labelFields[label], label, start, end);
+            if (match != null) {
+                result.add(match);
+            }
+            return true;
+        });
+        return result;
+    }
+
+    /**
+     * 已扫描到 position 时，任何字段都不可能再出现起始位置更靠前的标签
+     */
+    private boolean settled(FieldMatch[] best, int position) {
+        for (int f = 0; f < best.length; f++) {
+            if (position < best[f].getLabelStart() + maxLabelLengths[f]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private FieldMatch match(CharSequence text, int field, int label, int labelStart, int labelEnd) {
+        int start = skipSeparators(text, labelEnd);
+        int end;
+        switch (valueTypes.get(field)) {
+            case AMOUNT:
+                end = amountEnd(text, start);
+                break;
+            case PARAGRAPH:
+                end = paragraphEnd(text, start);
+                break;
+            default:
+                end = lineEnd(text, start);
+                break;
+        }
+        // 去掉首尾空白后为空的值视为未匹配
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start >= end) {
+            return null;
+        }
+        return new FieldMatch(fields.get(field), labels.get(label), text.subSequence(start, end).toString(),
+                labelStart, labelEnd, start, end);
+    }
+
+    private static int skipSeparators(CharSequence text, int position) {
+        int length = text.length();
+        while (position < length) {
+            char c = text.charAt(position);
+            if (c != ':' && c != '：' && c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != '\f' && c != '\u000B') {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    private static int lineEnd(CharSequence text, int position) {
+        int length = text.length();
+        while (position < length && text.charAt(position) != '\n' && text.charAt(position) != '\r') {
+            position++;
+        }
+        return position;
+    }
+
+    private static int paragraphEnd(CharSequence text, int position) {
+        int end = lineEnd(text, position);
+        if (end == position) {
+            return end;
+        }
+        int length = text.length();
+        for (int line = 0; line < PARAGRAPH_EXTRA_LINES && end < length; line++) {
+            int next = end;
+            if (text.charAt(next) == '\r' && next + 1 < length && text.charAt(next + 1) == '\n') {
+                next++;
+            }
+            if (text.charAt(next) != '\n') {
+                break;
+            }
+            end = lineEnd(text, next + 1);
+        }
+        return end;
+    }
+
+    private static int amountEnd(CharSequence text, int position) {
+        int length = text.length();
+        int end = position;
+        while (end < length && isAmountChar(text.charAt(end))) {
+            end++;
+        }
+        if (end == position) {
+            return position;
+        }
+        int unit = end;
+        while (unit < length && Character.isWhitespace(text.charAt(unit))) {
+            unit++;
+        }
+        if (unit < length && text.charAt(unit) == '万') {
+            unit++;
+            end = unit;
+        }
+        if (unit < length && text.charAt(unit) == '元') {
+            end = unit + 1;
+        }
+        return end;
+    }
+
+    private static boolean isAmountChar(char c) {
+        return (c >= '0' && c <= '9') || c == ',' || c == '.';
+    }
+
+    /**
+     * 一次字段匹配：字段名、命中的标签、值及其在原文中的位置
+     */
+    public static final class FieldMatch {
+
+        private final String field;
+
+        private final String label;
+
+        private final String value;
+
+        private final int labelStart;
+
+        private final int labelEnd;
+
+        private final int valueStart;
+
+        private final int valueEnd;
+
+        FieldMatch(String field, String label, String value, int labelStart, int labelEnd, int valueStart, int valueEnd) {
+            this.field = field;
+            this.label = label;
+            this.value = value;
+            this.labelStart = labelStart;
+            this.labelEnd = labelEnd;
+            this.valueStart = valueStart;
+            this.valueEnd = valueEnd;
+        }
+
+        public String getField() { return field; }
+
+        public String getLabel() { return label; }
+
+        public String getValue() { return value; }
+
+        public int getLabelStart() { return labelStart; }
+
+        public int getLabelEnd() { return labelEnd; }
+
+        public int getValueStart() { return valueStart; }
+
+        public int getValueEnd() { return valueEnd; }
+
+        @Override
+        public String toString() {
+            return field + "[" + valueStart + "," + valueEnd + ")=" + value;
+        }
+    }
+
+    public static final class Builder {
+
+        private final List<Rule> fields = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param field 结果中的字段名
+         * @param valueType 取值语法
+         * @param labels 文中可能出现的标签，如“项目名称”“工程名称”
+         */
+        public Builder field(String field, ValueType valueType, String... labels) {
+            if (labels.length == 0) {
+                throw new IllegalArgumentException("字段 " + field + " 至少需要一个标签");
+            }
+            fields.add(new Rule(field, valueType, Arrays.asList(labels)));
+            return this;
+        }
+
+        public TenderFieldExtractor build() {
+            return new TenderFieldExtractor(this);
+        }
+
+        private static final class Rule {
+
+            private final String field;
+
+            private final ValueType valueType;
+
+            private final List<String> labels;
+
+            private Rule(String field, ValueType valueType, List<String> labels) {
+                this.field = field;
+                this.valueType = valueType;
+                this.labels = labels;
+            }
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.example.service;
+
+import org.example.config.DocumentUploadProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 上传的招标文件读取
+ *
+ * 上传内容按块写入临时文件并计数，超过 document-upload.max-bytes 立即拒绝；同时保留开头的样本用于判断编码：
+ * 有BOM时按BOM，样本是合法UTF-8时按UTF-8，否则按GB18030（兼容GBK、GB2312）。
+ * 之后从临时文件逐块解码，样本之后才出现非法UTF-8字节时改按GB18030重新解码。
+ * PDF、DOCX等二进制格式由 {@link TenderIngestionService} 在同一临时文件上提取文字。
+ */
+@Component
+public class TenderFileReader {
+
+    private static final Logger log = LoggerFactory.getLogger(TenderFileReader.class);
+
+    static final Charset GB18030 = Charset.forName("GB18030");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final DocumentUploadProperties properties;
+
+    public TenderFileReader(DocumentUploadProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * 读取上传文件并解码为文本
+     *
+     * @param file 上传文件
+     * @return 解码后的文本及识别出的编码
+     * @throws DocumentTooLargeException 文件字节数或解码后的字符数超过上限
+     */
+    public Result read(MultipartFile file) {
+        try (Spooled spooled = spool(file)) {
+            return decode(spooled);
+        }
+    }
+
+    /**
+     * 把上传内容按块写入临时文件，并保留开头的样本
+     *
+     * @param file 上传文件
+     * @return 临时文件，使用完后需关闭以删除
+     * @throws DocumentTooLargeException 文件字节数超过上限
+     */
+    public Spooled spool(MultipartFile file) {
+        if (file.getSize() > properties.getMaxBytes()) {
+            throw tooLarge();
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile("tender-", ".upload");
+            byte[] sample = new byte[properties.getSampleBytes()];
+            int sampleLength = 0;
+            long size = 0;
+            try (InputStream in = file.getInputStream(); OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    size += n;
+                    if (size > properties.getMaxBytes()) {
+                        throw tooLarge();
+                    }
+                    if (sampleLength < sample.length) {
+                        int copied = Math.min(n, sample.length - sampleLength);
+                        System.arraycopy(buffer, 0, sample, sampleLength, copied);
+                        sampleLength += copied;
+                    }
+                    out.write(buffer, 0, n);
+                }
+            }
+            Spooled spooled = new Spooled(file.getOriginalFilename(), temp, sample, sampleLength, size);
+            temp = null;
+            return spooled;
+        } catch (IOException e) {
+            throw new RuntimeException("文件读取失败: " + e.getMessage());
+        } finally {
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    /**
+     * 按样本识别的编码把临时文件解码为文本
+     *
+     * @throws DocumentTooLargeException 解码后的字符数超过上限
+     */
+    public Result decode(Spooled spooled) {
+        byte[] sample = spooled.sample;
+        int sampleLength = spooled.sampleLength;
+        Charset charset = detect(sample, sampleLength, spooled.size == sampleLength);
+        try {
+            String content;
+            try {
+                content = decode(spooled.path, charset, hasUtf8Bom(sample, sampleLength), spooled.size);
+            } catch (CharacterCodingException e) {
+                log.debug("{} 在样本之后出现非法UTF-8字节，按GB18030重新解码", spooled.fileName);
+                charset = GB18030;
+                content = decode(spooled.path, charset, false, spooled.size);
+            }
+            return new Result(content, charset, spooled.size);
+        } catch (IOException e) {
+            throw new RuntimeException("文件读取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 从临时文件逐块解码；UTF-8按严格模式解码，遇到非法字节抛出 {@link CharacterCodingException}
+     */
+    private String decode(Path path, Charset charset, boolean skipBom, long size) throws IOException {
+        CodingErrorAction malformed = StandardCharsets.UTF_8.equals(charset)
+                ? CodingErrorAction.REPORT : CodingErrorAction.REPLACE;
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(malformed)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        int maxChars = properties.getMaxChars();
+        try (InputStream in = Files.newInputStream(path)) {
+            if (skipBom) {
+                in.skip(3);
+            }
+            Reader reader = new InputStreamReader(in, decoder);
+            // 中文文本每个字符至少两个字节，按字节数的一半预分配
+            StringBuilder text = new StringBuilder((int) Math.min(size / 2 + 16, maxChars));
+            char[] buffer = new char[BUFFER_SIZE];
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                if (text.length() + n > maxChars) {
+                    throw new DocumentTooLargeException("文件内容超过" + maxChars + "字符上限");
+                }
+                text.append(buffer, 0, n);
+            }
+            return text.toString();
+        }
+    }
+
+    private static void delete(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("删除上传临时文件失败: {} ({})", path, e.getMessage());
+        }
+    }
+
+    private DocumentTooLargeException tooLarge() {
+        return new DocumentTooLargeException("上传文件超过" + properties.getMaxBytes() + "字节上限");
+    }
+
+    /**
+     * 根据文件开头的样本判断编码
+     *
+     * @param sample 样本
+     * @param length 样本有效长度
+     * @param complete 样本是否已包含整个文件；否则末尾被截断的多字节字符不算非法
+     */
+    static Charset detect(byte[] sample, int length, boolean complete) {
+        if (hasUtf8Bom(sample, length)) {
+            return StandardCharsets.UTF_8;
+        }
+        if (length >= 2 && ((sample[0] == (byte) 0xFE && sample[1] == (byte) 0xFF)
+                || (sample[0] == (byte) 0xFF && sample[1] == (byte) 0xFE))) {
+            // UTF-16解码器按BOM确定字节序并跳过BOM
+            return StandardCharsets.UTF_16;
+        }
+        return isValidUtf8(sample, length, complete) ? StandardCharsets.UTF_8 : GB18030;
+    }
+
+    private static boolean hasUtf8Bom(byte[] sample, int length) {
+        return length >= 3 && sample[0] == (byte) 0xEF && sample[1] == (byte) 0xBB && sample[2] == (byte) 0xBF;
+    }
+
+    static boolean isValidUtf8(byte[] bytes, int length, boolean complete) {
+        int i = 0;
+        while (i < length) {
+            int b = bytes[i] & 0xFF;
+            int continuation;
+            if (b < 0x80) {
+                i++;
+                continue;
+            } else if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return false;
+            }
+            for (int j = 1; j <= continuation; j++) {
+                if (i + j >= length) {
+                    return !complete;
+                }
+                if ((bytes[i + j] & 0xC0) != 0x80) {
+                    return false;
+                }
+            }
+            i += continuation + 1;
+        }
+        return true;
+    }
+
+    /**
+     * 写入临时文件的上传内容，关闭时删除临时文件
+     */
+    public static final class Spooled implements Closeable {
+
+        private final String fileName;
+
+        private final Path path;
+
+        private final byte[] sample;
+
+        private final int sampleLength;
+
+        private final long size;
+
+        private Spooled(String fileName, Path path, byte[] sample, int sampleLength, long size) {
+            this.fileName = fileName;
+            this.path = path;
+            this.sample = sample;
+            this.sampleLength = sampleLength;
+            this.size = size;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public Path getPath() {
+            return path;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * 文件是否以指定的字节开头
+         */
+        public boolean startsWith(byte[] magic) {
+            if (sampleLength < magic.length) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if (sample[i] != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            delete(path);
+        }
+    }
+
+    /**
+     * 读取结果
+     */
+    public static final class Result {
+
+        private final String content;
+
+        private final Charset charset;
+
+        private final long bytes;
+
+        private Result(String content, Charset charset, long bytes) {
+            this.content = content;
+            this.charset = charset;
+            this.bytes = bytes;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public Charset getCharset() {
+            return charset;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
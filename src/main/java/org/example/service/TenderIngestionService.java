@@ -0,0 +1,218 @@
+package org.example.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.encryption.InvalidPasswordException;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.example.config.DocumentIngestionProperties;
+import org.example.config.DocumentUploadProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 上传招标文件的文字提取：按文件头识别PDF、DOCX，其余按文本文件解码
+ *
+ * 上传内容先由 {@link TenderFileReader} 写入临时文件，每个文件作为一个任务在有界线程池上提取，多个上传并行。
+ * PDF只解析一次（解析数据超过 pdf-max-main-memory-bytes 时写入临时文件），按页段依次提取，每段后检查字符上限；
+ * 逐页段重新打开文档会使解析开销随页段数成倍增加，PDDocument又不是线程安全的，因此同一文件内不并行。
+ * DOCX的正文XML只能顺序解析，以流式方式提取。
+ */
+@Service
+public class TenderIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TenderIngestionService.class);
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+
+    private final TenderFileReader tenderFileReader;
+
+    private final DocumentIngestionProperties properties;
+
+    private final DocumentUploadProperties uploadProperties;
+
+    private final GenerationMetrics generationMetrics;
+
+    private final Scheduler scheduler;
+
+    public TenderIngestionService(TenderFileReader tenderFileReader,
+                                  DocumentIngestionProperties properties,
+                                  DocumentUploadProperties uploadProperties,
+                                  GenerationMetrics generationMetrics) {
+        this.tenderFileReader = tenderFileReader;
+        this.properties = properties;
+        this.uploadProperties = uploadProperties;
+        this.generationMetrics = generationMetrics;
+        this.scheduler = Schedulers.newBoundedElastic(properties.getParallelism(),
+                Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "tender-ingestion");
+    }
+
+    @PreDestroy
+    public void dispose() {
+        scheduler.dispose();
+    }
+
+    /**
+     * 提取上传文件的文字
+     *
+     * 文件在调用时即写入临时文件，超过字节上限时直接抛出；提取在订阅后进行。
+     * 提取任务开始后由任务在结束时删除临时文件，订阅取消时不会删除仍在读取的文件；任务开始前取消则立即删除。
+     *
+     * @param file 上传文件（PDF、DOCX或文本）
+     * @return 提取出的文字及文件格式
+     * @throws DocumentTooLargeException 文件字节数超过上限；提取时超过字符或页数上限则以错误信号返回
+     */
+    public Mono<Result> ingest(MultipartFile file) {
+        TenderFileReader.Spooled spooled = tenderFileReader.spool(file);
+        // 临时文件由提取任务和取消/结束信号中先到的一方负责删除
+        AtomicBoolean claimed = new AtomicBoolean();
+        return Mono.fromCallable(() -> {
+                    if (!claimed.compareAndSet(false, true)) {
+                        return null;
+                    }
+                    try {
+                        return extract(spooled);
+                    } finally {
+                        spooled.close();
+                    }
+                })
+                .subscribeOn(scheduler)
+                .doFinally(signal -> {
+                    if (claimed.compareAndSet(false, true)) {
+                        spooled.close();
+                    }
+                })
+                .transform(generationMetrics.timed("TenderIngestionService.ingest"));
+    }
+
+    private Result extract(TenderFileReader.Spooled spooled) throws IOException {
+        if (spooled.startsWith(PDF_MAGIC)) {
+            return extractPdf(spooled);
+        }
+        if (spooled.startsWith(ZIP_MAGIC)) {
+            return new Result(DocxTextExtractor.extract(spooled.getPath(), uploadProperties.getMaxChars()), "docx", null, 0);
+        }
+        TenderFileReader.Result text = tenderFileReader.decode(spooled);
+        return new Result(text.getContent(), "text", text.getCharset(), 0);
+    }
+
+    /**
+     * 解析一次PDF，按页段依次提取文字
+     *
+     * PDDocument不是线程安全的，同一文档的页段不能并行提取；分段只用于尽早发现超过字符上限和响应取消。
+     */
+    private Result extractPdf(TenderFileReader.Spooled spooled) throws IOException {
+        int maxChars = uploadProperties.getMaxChars();
+        int pagesPerTask = properties.getPdfPagesPerTask();
+        try (PDDocument document = load(spooled.getPath())) {
+            int pages = document.getNumberOfPages();
+            if (pages > properties.getMaxPages()) {
+                throw new DocumentTooLargeException("PDF共" + pages + "页，超过" + properties.getMaxPages() + "页上限");
+            }
+            log.debug("{} 共{}页，每次提取{}页", spooled.getFileName(), pages, pagesPerTask);
+
+            PDFTextStripper stripper = new PDFTextStripper();
+            StringBuilder text = new StringBuilder();
+            for (int first = 1; first <= pages; first += pagesPerTask) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("PDF提取已取消");
+                }
+                stripper.setStartPage(first);
+                stripper.setEndPage(Math.min(pages, first + pagesPerTask - 1));
+                String part = stripper.getText(document);
+                if (text.length() + part.length() > maxChars) {
+                    throw new DocumentTooLargeException("文件内容超过" + maxChars + "字符上限");
+                }
+                text.append(part);
+            }
+            if (text.toString().trim().isEmpty()) {
+                throw new UnsupportedDocumentException("未能从PDF中提取文字，可能是扫描件");
+            }
+            return new Result(text.toString(), "pdf", null, pages);
+        }
+    }
+
+    private PDDocument load(Path path) throws IOException {
+        try {
+            return PDDocument.load(path.toFile(), MemoryUsageSetting.setupMixed(properties.getPdfMaxMainMemoryBytes()));
+        } catch (InvalidPasswordException e) {
+            throw new UnsupportedDocumentException("PDF文件已加密，无法提取文字");
+        }
+    }
+
+    /**
+     * 提取结果
+     */
+    public static final class Result {
+
+        private final String content;
+
+        private final String format;
+
+        private final Charset charset;
+
+        private final int pages;
+
+        private Result(String content, String format, Charset charset, int pages) {
+            this.content = content;
+            this.format = format;
+            this.charset = charset;
+            this.pages = pages;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * 文件格式：pdf、docx 或 text
+         */
+        public String getFormat() {
+            return format;
+        }
+
+        /**
+         * 文本文件识别出的编码，PDF和DOCX为null
+         */
+        public Charset getCharset() {
+            return charset;
+        }
+
+        /**
+         * PDF页数，其他格式为0
+         */
+        public int getPages() {
+            return pages;
+        }
+
+        /**
+         * 上传接口响应中描述文件的字段
+         */
+        public Map<String, Object> describe() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("format", format);
+            if (charset != null) {
+                result.put("charset", charset.name());
+            }
+            if (pages > 0) {
+                result.put("pages", pages);
+            }
+            return result;
+        }
+    }
+}
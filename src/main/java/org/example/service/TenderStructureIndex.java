@@ -0,0 +1,228 @@
+package org.example.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 招标文件的章节结构索引
+ *
+ * 一次扫描识别标题行及其层级，记录每个章节在原文中的起止位置，并按主题关键词建立到章节的映射，
+ * 使各项分析只把相关章节发给模型。标题层级：
+ * 1 - 第X章 / 第X篇 / 第X部分；2 - 第X节、一、；3 - （一）、1.、1.1 等。
+ * 编号开头的正文条款很常见，因此超过{@link #MAX_HEADING_LENGTH}个字符或者带句读标点的行不算标题。
+ */
+public final class TenderStructureIndex {
+
+    private static final Pattern LEVEL_1 = Pattern.compile("^\\s*第[一二三四五六七八九十百零〇\\d]+[章篇部分卷]");
+
+    private static final Pattern LEVEL_2 = Pattern.compile("^\\s*(第[一二三四五六七八九十百零〇\\d]+节|[一二三四五六七八九十]+[、．.])");
+
+    private static final Pattern LEVEL_3 = Pattern.compile(
+            "^\\s*(（[一二三四五六七八九十]+）|\\d+(\\.\\d+)*[、．.]\\s*\\S|\\d+(\\.\\d+)+\\s+\\S)");
+
+    /**
+     * 二、三级标题中不应出现的句读标点，出现时是编号开头的正文
+     */
+    private static final Pattern SENTENCE_PUNCTUATION = Pattern.compile("[。；;，,：:]");
+
+    static final int MAX_HEADING_LENGTH = 40;
+
+    /**
+     * 选中章节占全文的比例低于该值时，认为标题识别不可靠，改用全文
+     */
+    static final double MIN_EXCERPT_RATIO = 0.02;
+
+    /**
+     * 各项分析关心的主题，关键词出现在标题中的章节归入该主题
+     */
+    public enum Topic {
+
+        SCORING("评分", "评标", "评审", "分值"),
+
+        RISK("投标人须知", "须知", "资格", "资质", "业绩", "商务", "合同", "付款", "支付", "工期", "交货", "交付",
+                "验收", "质保", "违约", "保证金");
+
+        private final String[] keywords;
+
+        Topic(String... keywords) {
+            this.keywords = keywords;
+        }
+    }
+
+    private final String text;
+
+    private final List<Section> sections;
+
+    private final Map<String, List<Section>> sectionsByKeyword;
+
+    private TenderStructureIndex(String text, List<Section> sections) {
+        this.text = text;
+        this.sections = Collections.unmodifiableList(sections);
+        this.sectionsByKeyword = new HashMap<>();
+        for (Topic topic : Topic.values()) {
+            for (String keyword : topic.keywords) {
+                List<Section> matched = new ArrayList<>();
+                for (Section section : sections) {
+                    if (section.heading.contains(keyword)) {
+                        matched.add(section);
+                    }
+                }
+                sectionsByKeyword.put(keyword, matched);
+            }
+        }
+    }
+
+    /**
+     * 索引占用内存的估算字节数：原文加每个章节的固定开销
+     */
+    int estimatedBytes() {
+        return 2 * text.length() + 64 * sections.size();
+    }
+
+    /**
+     * 建立索引
+     *
+     * @param text 招标文件内容
+     * @return 结构索引
+     */
+    public static TenderStructureIndex build(String text) {
+        List<Section> sections = new ArrayList<>();
+        // 尚未遇到同级或更高级标题的章节
+        Deque<Section> open = new ArrayDeque<>();
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            lineEnd = lineEnd < 0 ? text.length() : lineEnd + 1;
+            int level = headingLevel(text.substring(lineStart, lineEnd));
+            if (level > 0) {
+                while (!open.isEmpty() && open.peek().level >= level) {
+                    open.pop().end = lineStart;
+                }
+                Section section = new Section(text.substring(lineStart, lineEnd).trim(), level, lineStart);
+                sections.add(section);
+                open.push(section);
+            }
+            lineStart = lineEnd;
+        }
+        for (Section section : open) {
+            section.end = text.length();
+        }
+        return new TenderStructureIndex(text, sections);
+    }
+
+    /**
+     * 标题行的层级，不是标题时为0
+     */
+    static int headingLevel(String line) {
+        String trimmed = line.trim();
+        if (trimmed.length() > MAX_HEADING_LENGTH) {
+            return 0;
+        }
+        if (LEVEL_1.matcher(line).find()) {
+            return 1;
+        }
+        if (SENTENCE_PUNCTUATION.matcher(trimmed).find()) {
+            return 0;
+        }
+        if (LEVEL_2.matcher(line).find()) {
+            return 2;
+        }
+        return LEVEL_3.matcher(line).find() ? 3 : 0;
+    }
+
+    /**
+     * 按原文顺序排列的全部章节
+     */
+    public List<Section> getSections() {
+        return sections;
+    }
+
+    /**
+     * 标题包含该主题关键词的章节，已去掉被其他选中章节包含的子章节
+     */
+    public List<Section> sectionsFor(Topic topic) {
+        Set<Section> matched = new LinkedHashSet<>();
+        for (String keyword : topic.keywords) {
+            matched.addAll(sectionsByKeyword.get(keyword));
+        }
+        List<Section> sorted = new ArrayList<>(matched);
+        sorted.sort(Comparator.comparingInt(Section::getStart).thenComparing(Section::getEnd, Comparator.reverseOrder()));
+        List<Section> outermost = new ArrayList<>();
+        for (Section section : sorted) {
+            Section last = outermost.isEmpty() ? null : outermost.get(outermost.size() - 1);
+            if (last == null || section.start >= last.end) {
+                outermost.add(section);
+            }
+        }
+        return outermost;
+    }
+
+    /**
+     * 该主题相关章节的原文，按原文顺序拼接
+     *
+     * @return 没有相关章节，或者相关章节不足全文的{@link #MIN_EXCERPT_RATIO}时为null
+     */
+    public String excerpt(Topic topic) {
+        List<Section> selected = sectionsFor(topic);
+        long covered = 0;
+        for (Section section : selected) {
+            covered += section.end - section.start;
+        }
+        if (selected.isEmpty() || covered < MIN_EXCERPT_RATIO * text.length()) {
+            return null;
+        }
+        StringBuilder excerpt = new StringBuilder();
+        for (Section section : selected) {
+            if (excerpt.length() > 0 && excerpt.charAt(excerpt.length() - 1) != '\n') {
+                excerpt.append('\n');
+            }
+            excerpt.append(text, section.start, section.end);
+        }
+        return excerpt.toString();
+    }
+
+    /**
+     * 以标题行开始的一个章节，范围延续到下一个同级或更高级标题之前
+     */
+    public static final class Section {
+
+        private final String heading;
+
+        private final int level;
+
+        private final int start;
+
+        private int end;
+
+        private Section(String heading, int level, int start) {
+            this.heading = heading;
+            this.level = level;
+            this.start = start;
+        }
+
+        public String getHeading() {
+            return heading;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+    }
+}
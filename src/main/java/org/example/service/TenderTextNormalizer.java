@@ -0,0 +1,260 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 发送给模型之前精简招标文件文本
+ *
+ * 由PDF/Word转换的文本带有逐页重复的页眉页脚、页码、连续空行和重复的法律条款，这些内容只增加提示词评估时间。
+ * 处理步骤：
+ * 1. 统一换行和空白字符，行内连续空白合并为一个空格；
+ * 2. 去掉页码行（第3页、- 3 -、3/50、Page 3 of 50 等，单独一行的数字可能是表格内容，予以保留）；
+ * 3. 出现多次的短行视为页眉页脚，只保留第一次（比较时忽略其中的页码，以覆盖带页码的页眉）；
+ * 4. 去掉与前文重复的长段落（忽略空白、标点和页码后完全相同；只差一两个字的条款如甲方/乙方、不得/应当含义不同，予以保留）；
+ * 5. 连续空行合并为一个。
+ * 每次处理去掉的字符数和预估token数计入当前请求的 {@link LlmTiming} 和指标。
+ */
+@Component
+public class TenderTextNormalizer {
+
+    private static final Logger log = LoggerFactory.getLogger(TenderTextNormalizer.class);
+
+    /**
+     * 行内的页码片段
+     */
+    private static final String PAGE_NUMBER_FRAGMENT =
+            "第\\s*\\d+\\s*页(\\s*[,，/]?\\s*共\\s*\\d+\\s*页)?|[-—–]\\s*\\d{1,4}\\s*[-—–]|\\d{1,4}\\s*/\\s*\\d{1,4}|(?i:page)\\s*\\d+(\\s*(?i:of)\\s*\\d+)?";
+
+    private static final Pattern PAGE_NUMBER = Pattern.compile("^(" + PAGE_NUMBER_FRAGMENT + ")$");
+
+    private static final Pattern PAGE_NUMBER_IN_LINE = Pattern.compile(PAGE_NUMBER_FRAGMENT);
+
+    /**
+     * 视为页眉页脚的行长度范围
+     */
+    private static final int MIN_REPEATED_LINE_CHARS = 8;
+
+    private static final int MAX_REPEATED_LINE_CHARS = 80;
+
+    /**
+     * 短行出现多少次以上视为页眉页脚
+     */
+    private static final int MIN_REPEATED_LINE_OCCURRENCES = 3;
+
+    /**
+     * 参与去重的段落最少字符数（不含空白和标点）
+     */
+    private static final int MIN_DUPLICATE_PARAGRAPH_CHARS = 100;
+
+    /**
+     * 没有空行时作为段落结束的句末标点
+     */
+    private static final String PARAGRAPH_END = "。！？；!?;";
+
+    private final Counter removedChars;
+
+    private final Counter removedTokens;
+
+    public TenderTextNormalizer(MeterRegistry meterRegistry) {
+        this.removedChars = Counter.builder("prompt.normalizer.removed.chars")
+                .description("精简招标文件时去掉的字符数")
+                .register(meterRegistry);
+        this.removedTokens = Counter.builder("prompt.normalizer.removed.tokens")
+                .description("精简招标文件时去掉的预估token数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 精简文本，并把去掉的字符数和token数计入当前请求
+     *
+     * @param text 原文
+     * @return 精简结果
+     */
+    public Result normalize(String text) {
+        long start = System.nanoTime();
+        Result result = strip(text);
+        LlmTiming.current().recordNormalization(result.removedChars, result.removedTokens, System.nanoTime() - start);
+        removedChars.increment(result.removedChars);
+        removedTokens.increment(result.removedTokens);
+        log.debug("招标文件精简：去掉{}个字符，约{}个token", result.removedChars, result.removedTokens);
+        return result;
+    }
+
+    /**
+     * 精简文本，不记录指标
+     */
+    static Result strip(String text) {
+        if (text == null || text.isEmpty()) {
+            return new Result(text, 0, 0);
+        }
+        List<String> lines = lines(text);
+        boolean[] removed = new boolean[lines.size()];
+        removeRepeatedLines(lines, removed);
+        removeDuplicateParagraphs(lines, removed);
+
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean previousBlank = true;
+        for (int i = 0; i < lines.size(); i++) {
+            if (removed[i]) {
+                continue;
+            }
+            String line = lines.get(i);
+            if (line.isEmpty() && previousBlank) {
+                continue;
+            }
+            normalized.append(line).append('\n');
+            previousBlank = line.isEmpty();
+        }
+        while (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) == '\n') {
+            normalized.setLength(normalized.length() - 1);
+        }
+        String result = normalized.toString();
+        return new Result(result, text.length() - result.length(),
+                Math.max(0, TokenEstimator.estimate(text) - TokenEstimator.estimate(result)));
+    }
+
+    /**
+     * 拆分为行，合并行内空白并去掉页码行
+     */
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        StringBuilder line = new StringBuilder();
+        boolean space = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '\n';
+            if (c == '\n' || c == '\r' || c == '\f') {
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                String trimmed = line.toString().trim();
+                if (!PAGE_NUMBER.matcher(trimmed).matches()) {
+                    lines.add(trimmed);
+                }
+                line.setLength(0);
+                space = false;
+            } else if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                space = true;
+            } else {
+                if (space && line.length() > 0) {
+                    line.append(' ');
+                }
+                space = false;
+                line.append(c);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * 多次出现的短行只保留第一次，比较时忽略行内的页码
+     */
+    private static void removeRepeatedLines(List<String> lines, boolean[] removed) {
+        Map<String, Integer> occurrences = new HashMap<>();
+        String[] keys = new String[lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            if (line.length() < MIN_REPEATED_LINE_CHARS || line.length() > MAX_REPEATED_LINE_CHARS) {
+                continue;
+            }
+            keys[i] = PAGE_NUMBER_IN_LINE.matcher(line).replaceAll("#");
+            occurrences.merge(keys[i], 1, Integer::sum);
+        }
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (keys[i] != null && occurrences.get(keys[i]) >= MIN_REPEATED_LINE_OCCURRENCES && !seen.add(keys[i])) {
+                removed[i] = true;
+            }
+        }
+    }
+
+    /**
+     * 去掉与前文完全重复的段落，比较时忽略空白、标点和行内页码；
+     * 文本中没有空行时，标题行单独成段，其余行延续到以句末标点结尾的行或下一个标题为止
+     */
+    private static void removeDuplicateParagraphs(List<String> lines, boolean[] removed) {
+        boolean hasBlankLines = lines.contains("");
+        Set<String> seen = new HashSet<>();
+        int start = 0;
+        while (start < lines.size()) {
+            int end = start;
+            if (hasBlankLines) {
+                while (end < lines.size() && !lines.get(end).isEmpty()) {
+                    end++;
+                }
+            } else {
+                end = start + 1;
+                if (TenderStructureIndex.headingLevel(lines.get(start)) == 0) {
+                    while (!endsParagraph(lines.get(end - 1)) && end < lines.size()
+                            && TenderStructureIndex.headingLevel(lines.get(end)) == 0) {
+                        end++;
+                    }
+                }
+            }
+            StringBuilder key = new StringBuilder();
+            for (int i = start; i < end; i++) {
+                if (removed[i]) {
+                    continue;
+                }
+                String line = PAGE_NUMBER_IN_LINE.matcher(lines.get(i)).replaceAll("");
+                for (int j = 0; j < line.length(); j++) {
+                    char c = line.charAt(j);
+                    if (Character.isLetterOrDigit(c)) {
+                        key.append(c);
+                    }
+                }
+            }
+            if (key.length() >= MIN_DUPLICATE_PARAGRAPH_CHARS && !seen.add(key.toString())) {
+                for (int i = start; i < end; i++) {
+                    removed[i] = true;
+                }
+            }
+            start = hasBlankLines ? end + 1 : end;
+        }
+    }
+
+    private static boolean endsParagraph(String line) {
+        return !line.isEmpty() && PARAGRAPH_END.indexOf(line.charAt(line.length() - 1)) >= 0;
+    }
+
+    /**
+     * 精简结果
+     */
+    public static final class Result {
+
+        private final String text;
+
+        private final int removedChars;
+
+        private final int removedTokens;
+
+        private Result(String text, int removedChars, int removedTokens) {
+            this.text = text;
+            this.removedChars = removedChars;
+            this.removedTokens = removedTokens;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public int getRemovedChars() {
+            return removedChars;
+        }
+
+        public int getRemovedTokens() {
+            return removedTokens;
+        }
+    }
+}
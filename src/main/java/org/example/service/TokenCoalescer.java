@@ -0,0 +1,81 @@
+package org.example.service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * 把逐token的流合并为较少的分片
+ *
+ * 第一个token原样立即发出；之后的token累积到maxChars个字符时立即发出，否则每隔maxDelay
+ * 把已累积的内容发出一次。流结束或出错前先发出剩余内容。
+ * 下游消费慢时多余的定时刷新被丢弃，不会中断流。
+ */
+final class TokenCoalescer {
+
+    private static final Object TICK = new Object();
+
+    private static final Object END = new Object();
+
+    private TokenCoalescer() {
+    }
+
+    static Flux<String> coalesce(Flux<String> tokens, Duration maxDelay, int maxChars) {
+        return Flux.defer(() -> {
+            State state = new State();
+            Flux<Object> events = tokens
+                    .<Object>map(token -> token)
+                    .onErrorResume(error -> Mono.just(new Failure(error)))
+                    .concatWith(Mono.just(END));
+            // interval不支持背压：下游写出慢时丢弃多余的tick，下一次tick或新token到达时再发出累积的内容
+            Flux<Object> ticks = Flux.interval(maxDelay, maxDelay)
+                    .onBackpressureDrop()
+                    .map(tick -> TICK);
+            return Flux.merge(events, ticks)
+                    .takeUntil(event -> event == END || event instanceof Failure)
+                    .<String>handle((event, sink) -> {
+                        if (event == TICK || event == END) {
+                            if (state.pending.length() > 0) {
+                                sink.next(state.drain());
+                            }
+                        } else if (event instanceof Failure) {
+                            if (state.pending.length() > 0) {
+                                sink.next(state.drain());
+                            }
+                            sink.error(((Failure) event).error);
+                        } else if (state.first) {
+                            state.first = false;
+                            sink.next((String) event);
+                        } else {
+                            state.pending.append((String) event);
+                            if (state.pending.length() >= maxChars) {
+                                sink.next(state.drain());
+                            }
+                        }
+                    });
+        });
+    }
+
+    private static final class State {
+
+        final StringBuilder pending = new StringBuilder();
+
+        boolean first = true;
+
+        String drain() {
+            String chunk = pending.toString();
+            pending.setLength(0);
+            return chunk;
+        }
+    }
+
+    private static final class Failure {
+
+        final Throwable error;
+
+        Failure(Throwable error) {
+            this.error = error;
+        }
+    }
+}
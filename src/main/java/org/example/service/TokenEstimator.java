@@ -0,0 +1,36 @@
+package org.example.service;
+
+/**
+ * 按字符粗略估算token数
+ *
+ * 中文（CJK）字符约0.7个token，其余字符约0.28个token（约3.5个字符一个token），
+ * 用于调度成本估算与分块，不追求与模型分词器完全一致。
+ */
+public final class TokenEstimator {
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int cjk = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (isCjk(text.charAt(i))) {
+                cjk++;
+            } else {
+                other++;
+            }
+        }
+        return (int) Math.ceil(cjk * 0.7 + other * 0.28);
+    }
+
+    private static boolean isCjk(char c) {
+        return (c >= '\u4e00' && c <= '\u9fff')
+                || (c >= '\u3400' && c <= '\u4dbf')
+                || (c >= '\u3000' && c <= '\u303f')
+                || (c >= '\uff00' && c <= '\uffef');
+    }
+}
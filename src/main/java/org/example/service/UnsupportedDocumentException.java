@@ -0,0 +1,11 @@
+package org.example.service;
+
+/**
+ * 上传文件无法提取文字（加密PDF、扫描件、不是DOCX的压缩包等）时抛出，对应HTTP 415
+ */
+public class UnsupportedDocumentException extends IllegalArgumentException {
+
+    public UnsupportedDocumentException(String message) {
+        super(message);
+    }
+}
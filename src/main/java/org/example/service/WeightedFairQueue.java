@@ -0,0 +1,102 @@
+package org.example.service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按请求类别加权的公平队列（自计时公平队列，SCFQ）
+ *
+ * 入队时为请求计算虚拟完成时间：max(当前虚拟时间, 本类别上一个请求的完成时间) + 成本 / 权重，
+ * 出队时取完成时间最小的请求。同一类别内保持先进先出，权重高、成本低的请求优先出队，
+ * 但长任务不会被无限推迟。非线程安全，由调用方加锁。
+ */
+final class WeightedFairQueue<E> {
+
+    private final Map<RequestClass, Deque<Entry<E>>> queues = new EnumMap<>(RequestClass.class);
+
+    private final Map<RequestClass, Double> lastFinish = new EnumMap<>(RequestClass.class);
+
+    private final ToIntFunction<RequestClass> weights;
+
+    private double virtualTime;
+
+    private int size;
+
+    WeightedFairQueue(ToIntFunction<RequestClass> weights) {
+        this.weights = weights;
+        for (RequestClass requestClass : RequestClass.values()) {
+            queues.put(requestClass, new ArrayDeque<>());
+            lastFinish.put(requestClass, 0.0);
+        }
+    }
+
+    Entry<E> offer(E item, RequestClass requestClass, long cost) {
+        double start = Math.max(virtualTime, lastFinish.get(requestClass));
+        double finish = start + (double) Math.max(1, cost) / weights.applyAsInt(requestClass);
+        lastFinish.put(requestClass, finish);
+
+        Entry<E> entry = new Entry<>(item, requestClass, finish);
+        queues.get(requestClass).addLast(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * 取出可调度类别中虚拟完成时间最小的请求
+     *
+     * @param eligible 当前允许调度的类别
+     * @return 请求，没有可调度的请求时返回null
+     */
+    E poll(Predicate<RequestClass> eligible) {
+        Deque<Entry<E>> selected = null;
+        for (Map.Entry<RequestClass, Deque<Entry<E>>> candidate : queues.entrySet()) {
+            Entry<E> head = candidate.getValue().peekFirst();
+            if (head != null && eligible.test(candidate.getKey())
+                    && (selected == null || head.finish < selected.peekFirst().finish)) {
+                selected = candidate.getValue();
+            }
+        }
+        if (selected == null) {
+            return null;
+        }
+        Entry<E> entry = selected.pollFirst();
+        virtualTime = Math.max(virtualTime, entry.finish);
+        size--;
+        return entry.item;
+    }
+
+    boolean remove(Entry<E> entry) {
+        if (queues.get(entry.requestClass).remove(entry)) {
+            size--;
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int size(RequestClass requestClass) {
+        return queues.get(requestClass).size();
+    }
+
+    static final class Entry<E> {
+
+        final E item;
+
+        final RequestClass requestClass;
+
+        final double finish;
+
+        Entry(E item, RequestClass requestClass, double finish) {
+            this.item = item;
+            this.requestClass = requestClass;
+            this.finish = finish;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.benchmark;
+
+import org.example.service.BidAnalysisService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 从招标文件中提取关键字段的耗时与分配量：原先每次编译4个正则、扫描4遍 与 {@link org.example.service.TenderFieldExtractor} 单次扫描
+ *
+ * 运行：mvn -P benchmark test -Djmh.include=BidAnalysisBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BidAnalysisBenchmark {
+
+    private static final MethodHandle EXTRACT_KEY_INFORMATION =
+            PrivateMethods.find(BidAnalysisService.class, "extractKeyInformation", String.class);
+
+    @Param({"10", "100", "1000"})
+    public int kilobytes;
+
+    private final BidAnalysisService analysisService = new BidAnalysisService();
+
+    private String bidDocument;
+
+    @Setup
+    public void setUp() {
+        bidDocument = TenderCorpus.generate(kilobytes);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> extractKeyInformation() throws Throwable {
+        return (Map<String, Object>) EXTRACT_KEY_INFORMATION.invoke(analysisService, bidDocument);
+    }
+
+    /**
+     * 改为 TenderFieldExtractor 之前的实现，作为对照
+     */
+    @Benchmark
+    public Map<String, Object> regexBaseline() {
+        Map<String, Object> info = new HashMap<>();
+        Matcher projectName = Pattern.compile("(?:项目名称|工程名称)[\\s:：]*([^\n\r]+)").matcher(bidDocument);
+        if (projectName.find()) {
+            info.put("projectName", projectName.group(1).trim());
+        }
+        Matcher budget = Pattern.compile("(?:预算金额|项目预算|投资估算)[\\s:：]*([\\d,.]+\\s*万?元?)").matcher(bidDocument);
+        if (budget.find()) {
+            info.put("budget", budget.group(1).trim());
+        }
+        Matcher deadline = Pattern.compile("(?:投标截止时间|递交投标文件截止时间)[\\s:：]*([^\n\r]+)").matcher(bidDocument);
+        if (deadline.find()) {
+            info.put("deadline", deadline.group(1).trim());
+        }
+        Matcher scoring = Pattern.compile("(?:评分标准|评标办法)[\\s:：]*([^\n\r]+(?:\n[^\n\r]*){0,10})").matcher(bidDocument);
+        if (scoring.find()) {
+            info.put("scoringCriteria", scoring.group(1).trim());
+        }
+        return info;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BidAnalysisBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
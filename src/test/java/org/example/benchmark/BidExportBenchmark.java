@@ -0,0 +1,63 @@
+package org.example.benchmark;
+
+import org.example.service.BidExportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 标书导出为HTML（含 formatContentToHtml 的标题替换和分段）的耗时与分配量
+ *
+ * 运行：mvn -P benchmark test -Djmh.include=BidExportBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BidExportBenchmark {
+
+    /**
+     * 标书大小（KB）：单个章节、完整标书、带附件的大型标书
+     */
+    @Param({"10", "100", "1000"})
+    public int kilobytes;
+
+    private final BidExportService exportService = new BidExportService();
+
+    private String bidDocument;
+
+    @Setup
+    public void setUp() {
+        bidDocument = TenderCorpus.generate(kilobytes);
+    }
+
+    @Benchmark
+    public String exportToHtml() {
+        return exportService.exportToHtml(bidDocument, "default");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BidExportBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
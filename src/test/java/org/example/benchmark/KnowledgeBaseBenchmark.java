@@ -0,0 +1,91 @@
+package org.example.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.service.KnowledgeBaseService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 知识库检索的耗时与分配量：semanticSearch 对全部条目打分排序，extractKeywords 切分查询
+ *
+ * 运行：mvn -P benchmark test -Djmh.include=KnowledgeBaseBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KnowledgeBaseBenchmark {
+
+    private static final String[] VOCABULARY = {
+            "政务云", "服务器", "存储", "网络安全", "等级保护", "数据库", "中间件", "运维服务", "质保", "培训",
+            "机房", "UPS", "空调", "监控", "备份", "容灾", "虚拟化", "负载均衡", "防火墙", "堡垒机",
+            "施工", "监理", "造价", "工期", "验收", "资质", "业绩", "项目经理", "社保", "信用",
+    };
+
+    private static final String QUERY = "政务云平台 服务器 存储扩容，需要满足等级保护三级要求，并提供三年运维服务和质保";
+
+    private static final MethodHandle EXTRACT_KEYWORDS =
+            PrivateMethods.find(KnowledgeBaseService.class, "extractKeywords", String.class);
+
+    /**
+     * 知识库条目数
+     */
+    @Param({"1000", "10000"})
+    public int entries;
+
+    private KnowledgeBaseService knowledgeBase;
+
+    @Setup
+    public void setUp() {
+        knowledgeBase = new KnowledgeBaseService(new SimpleMeterRegistry());
+        Random random = new Random(entries);
+        for (int i = 0; i < entries; i++) {
+            String[] keywords = new String[5];
+            StringBuilder content = new StringBuilder();
+            for (int k = 0; k < keywords.length; k++) {
+                keywords[k] = VOCABULARY[random.nextInt(VOCABULARY.length)];
+                content.append(keywords[k]).append("相关的投标经验与技术要点。");
+            }
+            knowledgeBase.addKnowledgeEntry(content.toString(), "category-" + (i % 20), keywords);
+        }
+    }
+
+    @Benchmark
+    public List<KnowledgeBaseService.KnowledgeEntry> semanticSearch() {
+        return knowledgeBase.semanticSearch(QUERY, 10);
+    }
+
+    @Benchmark
+    public String[] extractKeywords() throws Throwable {
+        return (String[]) EXTRACT_KEYWORDS.invoke(knowledgeBase, QUERY);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(KnowledgeBaseBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
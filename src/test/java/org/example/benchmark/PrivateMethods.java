@@ -0,0 +1,24 @@
+package org.example.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+
+/**
+ * 基准测试直接调用服务中的私有方法，避免为测量而放宽生产代码的可见性
+ */
+final class PrivateMethods {
+
+    private PrivateMethods() {
+    }
+
+    static MethodHandle find(Class<?> owner, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = owner.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("找不到方法 " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+}
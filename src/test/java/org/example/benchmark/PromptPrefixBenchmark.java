@@ -0,0 +1,80 @@
+package org.example.benchmark;
+
+import org.example.Main;
+import org.example.service.OllamaService;
+import org.example.service.SystemPromptRegistry;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 系统提示前缀复用的效果测量，需要连接真实的Ollama
+ *
+ * 对每个已注册的系统提示分别测量：
+ * - cold：在系统提示前加随机前缀，使Ollama无法复用KV缓存
+ * - warm：预热后使用原系统提示
+ * 输出两种情况下的平均prompt_eval_count与prompt_eval_duration。
+ *
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=org.example.benchmark.PromptPrefixBenchmark -Drounds=3
+ */
+public class PromptPrefixBenchmark {
+
+    private static final String USER_MESSAGE = "请用一句话说明本项目的投标截止时间。";
+
+    public static void main(String[] args) {
+        int rounds = Integer.getInteger("rounds", 3);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Main.class)
+                .web(WebApplicationType.NONE)
+                .properties("ollama.prompt-cache.warm-up=false")
+                .run(args);
+        try {
+            OllamaService ollamaService = context.getBean(OllamaService.class);
+            SystemPromptRegistry registry = context.getBean(SystemPromptRegistry.class);
+
+            Map<String, Object> options = new HashMap<>();
+            options.put("num_predict", 1);
+
+            System.out.printf("%-55s %10s %12s %10s %12s %12s%n",
+                    "system prompt", "cold tok", "cold ms", "warm tok", "warm ms", "saved ms");
+            for (Map.Entry<String, String> entry : registry.getPrompts().entrySet()) {
+                String systemPrompt = entry.getValue();
+
+                long coldTokens = 0;
+                long coldNanos = 0;
+                for (int i = 0; i < rounds; i++) {
+                    String busted = "[" + UUID.randomUUID() + "]\n" + systemPrompt;
+                    OllamaService.ChatResponse response = ollamaService
+                            .rawChat(busted, USER_MESSAGE + i, options)
+                            .block(Duration.ofMinutes(5));
+                    coldTokens += response.getPromptEvalCount();
+                    coldNanos += response.getPromptEvalDuration();
+                }
+
+                ollamaService.warmUp(systemPrompt).blockLast(Duration.ofMinutes(5));
+                long warmTokens = 0;
+                long warmNanos = 0;
+                for (int i = 0; i < rounds; i++) {
+                    OllamaService.ChatResponse response = ollamaService
+                            .rawChat(systemPrompt, USER_MESSAGE + i, options)
+                            .block(Duration.ofMinutes(5));
+                    warmTokens += response.getPromptEvalCount();
+                    warmNanos += response.getPromptEvalDuration();
+                }
+
+                double coldMs = coldNanos / 1e6 / rounds;
+                double warmMs = warmNanos / 1e6 / rounds;
+                System.out.printf("%-55s %10d %12.1f %10d %12.1f %12.1f%n",
+                        entry.getKey(), coldTokens / rounds, coldMs, warmTokens / rounds, warmMs, coldMs - warmMs);
+            }
+        } finally {
+            context.close();
+        }
+    }
+}
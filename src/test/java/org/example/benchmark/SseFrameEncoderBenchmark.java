@@ -0,0 +1,61 @@
+package org.example.benchmark;
+
+import org.example.service.SseFrameEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个token编码为SSE帧的耗时与分配量：原先的字符串拼接+replace 与 {@link SseFrameEncoder}
+ *
+ * 运行：mvn -P benchmark test -Djmh.include=SseFrameEncoderBenchmark
+ * 关注GC profiler输出的 gc.alloc.rate.norm（每次操作分配的字节数）。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseFrameEncoderBenchmark {
+
+    /**
+     * 典型的token：短中文、带引号、带换行的英文
+     */
+    @Param({"投标", "\"quoted\"", "line\nbreak"})
+    public String token;
+
+    @Benchmark
+    public String concatAndReplace() {
+        String jsonChunk = "{\"type\":\"chunk\",\"content\":\"" +
+                token.replace("\"", "\\\"").replace("\n", "\\n") + "\"}";
+        return "data: " + jsonChunk + "\n\n";
+    }
+
+    @Benchmark
+    public String encoder() {
+        return SseFrameEncoder.chunk(token);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(SseFrameEncoderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的招标文件样本，按目标大小重复生成带编号标题、段落和关键字段的文本
+ *
+ * 关键字段按真实文件的位置分布：项目名称、预算、截止时间、保证金、资格要求等在开头的招标公告中，评标办法在中间章节。
+ */
+final class TenderCorpus {
+
+    private static final String[] SENTENCES = {
+            "投标人应具备独立法人资格，具有有效的营业执照和相应的资质证书。",
+            "本项目采用公开招标方式，欢迎符合条件的供应商参加投标。",
+            "投标文件应按照招标文件要求的格式编制，并加盖投标人公章。",
+            "中标人应在合同签订后十五个工作日内完成设备的供货和安装调试。",
+            "供应商须提供不少于三年的免费质保服务，质保期内响应时间不超过4小时。",
+            "技术方案应包括系统架构设计、部署方案、数据迁移方案和应急预案。",
+            "所有设备应为原厂全新产品，并提供制造商授权书及售后服务承诺函。",
+            "项目实施过程中应严格遵守国家有关安全生产和环境保护的法律法规。",
+    };
+
+    private TenderCorpus() {
+    }
+
+    /**
+     * 生成约 kilobytes KB（按UTF-16字符数计）的招标文件
+     */
+    static String generate(int kilobytes) {
+        Random random = new Random(kilobytes);
+        int target = kilobytes * 1024 / 2;
+        StringBuilder text = new StringBuilder(target + 1024);
+        text.append("第一章 招标公告\n\n")
+                .append("项目名称：某市政务云平台扩容及运维服务采购项目\n")
+                .append("项目编号：ZFCG-2024-0815\n")
+                .append("预算金额：1,250.00万元\n")
+                .append("投标截止时间：2024年9月30日上午9时30分（北京时间）\n")
+                .append("投标保证金：20万元\n")
+                .append("服务期限：三年\n")
+                .append("投标人资格要求：\n1. 具有独立法人资格；\n2. 具有信息系统集成资质；\n3. 近三年无重大违法记录。\n\n");
+        int chapter = 1;
+        int section = 0;
+        boolean scoring = false;
+        while (text.length() < target) {
+            if (section == 5) {
+                chapter++;
+                section = 0;
+            }
+            section++;
+            text.append(chapter).append('.').append(section).append(' ').append("章节").append(chapter)
+                    .append('-').append(section).append("\n\n");
+            if (!scoring && text.length() > target / 2) {
+                text.append("评标办法：综合评分法\n")
+                        .append("1. 价格分30分\n")
+                        .append("2. 技术分50分\n")
+                        .append("3. 商务分20分\n\n");
+                scoring = true;
+            }
+            for (int p = 0; p < 3; p++) {
+                for (int s = 0; s < 4; s++) {
+                    text.append(SENTENCES[random.nextInt(SENTENCES.length)]);
+                }
+                text.append("\n\n");
+            }
+        }
+        return text.toString();
+    }
+}
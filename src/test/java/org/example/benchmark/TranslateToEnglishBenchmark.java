@@ -0,0 +1,59 @@
+package org.example.benchmark;
+
+import org.example.service.ImageGenerationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片提示词中文关键词映射的耗时与分配量
+ *
+ * 运行：mvn -P benchmark test -Djmh.include=TranslateToEnglishBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TranslateToEnglishBenchmark {
+
+    private static final MethodHandle TRANSLATE_TO_ENGLISH =
+            PrivateMethods.find(ImageGenerationService.class, "translateToEnglish", String.class);
+
+    /**
+     * 第一个分支命中、最后一个分支命中、全部未命中（英文提示词）
+     */
+    @Param({"一只在窗台上晒太阳的猫", "宁静的大自然", "A modern office building at sunset, photorealistic"})
+    public String prompt;
+
+    private final ImageGenerationService imageGenerationService = new ImageGenerationService();
+
+    @Benchmark
+    public String translateToEnglish() throws Throwable {
+        return (String) TRANSLATE_TO_ENGLISH.invoke(imageGenerationService, prompt);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TranslateToEnglishBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
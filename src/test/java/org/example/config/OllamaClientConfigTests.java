@@ -0,0 +1,30 @@
+package org.example.config;
+
+import org.example.service.RequestClass;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaClientConfigTests {
+
+    @Test
+    void defaultResponseTimeoutCoversEveryDeadline() {
+        assertDoesNotThrow(() -> OllamaClientConfig.validateResponseTimeout(
+                new OllamaClientProperties().getResponseTimeout(), new ResilienceProperties()));
+    }
+
+    @Test
+    void rejectsResponseTimeoutShorterThanADeadline() {
+        ResilienceProperties resilience = new ResilienceProperties();
+        resilience.setDeadlines(Collections.singletonMap(RequestClass.BULK, Duration.ofSeconds(400)));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> OllamaClientConfig.validateResponseTimeout(Duration.ofSeconds(300), resilience));
+        assertTrue(error.getMessage().contains("deadlines.bulk"), error.getMessage());
+    }
+}
@@ -0,0 +1,269 @@
+package org.example.loadtest;
+
+import org.example.Main;
+import org.example.support.StubOllamaServer;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 端到端压测：以固定并发向接口发送请求，统计吞吐量、延迟和首字节时间（流式接口即首token时间）
+ *
+ * 未指定 -Dtarget 时在进程内启动 {@link StubOllamaServer} 和应用本身，不需要真实的Ollama；
+ * 每个请求的内容都不同，避免被响应缓存或请求合并吸收。
+ *
+ * 运行：mvn test-compile exec:java -Dexec.classpathScope=test
+ *       -Dexec.mainClass=org.example.loadtest.LoadDriver
+ *       -Dscenarios=chat,analyze,section -Dconcurrency=8 -Drequests=200
+ *       -DpromptEvalMs=200 -DtokenMs=20 -Dtokens=64 -DfailureRate=0
+ */
+public class LoadDriver {
+
+    /**
+     * 压测的接口
+     */
+    public enum Scenario {
+        CHAT("/api/ai/chat") {
+            @Override
+            String body(int i) {
+                return "{\"message\":\"请简要介绍投标流程（" + i + "）\"}";
+            }
+        },
+        ANALYZE("/api/bid-analysis/analyze") {
+            @Override
+            String body(int i) {
+                return "{\"bidDocument\":\"项目名称：第" + i + "号办公楼改造工程\\n项目编号：ZB-2024-" + i
+                        + "\\n预算金额：500万元\\n投标截止时间：2024年12月31日\\n技术要求：施工工期不超过180天。\"}";
+            }
+        },
+        SECTION("/api/bid-section/generate") {
+            @Override
+            String body(int i) {
+                return "{\"sectionTitle\":\"施工组织设计（" + i + "）\",\"sectionRequirements\":\"说明进度计划与人员配置\"}";
+            }
+        };
+
+        private final String path;
+
+        Scenario(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        abstract String body(int i);
+    }
+
+    private final String baseUrl;
+
+    public LoadDriver(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * 以 concurrency 个线程共发送 requests 个请求
+     */
+    public Report run(Scenario scenario, int concurrency, int requests) throws InterruptedException {
+        Report report = new Report(scenario, requests);
+        AtomicInteger next = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                int i;
+                while ((i = next.getAndIncrement()) < requests) {
+                    send(scenario, i, report);
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void send(Scenario scenario, int i, Report report) {
+        long start = System.nanoTime();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + scenario.getPath()).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(scenario.body(i).getBytes(StandardCharsets.UTF_8));
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            long firstByte = 0;
+            byte[] buffer = new byte[4096];
+            int n;
+            while (in != null && (n = in.read(buffer)) >= 0) {
+                if (firstByte == 0 && n > 0) {
+                    firstByte = System.nanoTime();
+                }
+                body.write(buffer, 0, n);
+            }
+            long end = System.nanoTime();
+            String text = new String(body.toByteArray(), StandardCharsets.UTF_8);
+            if (status >= 400 || text.contains("\"type\":\"error\"")) {
+                report.recordError(status + " " + abbreviate(text));
+            } else {
+                report.recordSuccess(end - start, (firstByte == 0 ? end : firstByte) - start);
+            }
+        } catch (IOException e) {
+            report.recordError(e.toString());
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() <= 120 ? text : text.substring(0, 120) + "...";
+    }
+
+    /**
+     * 一个场景的统计结果
+     */
+    public static class Report {
+
+        private final Scenario scenario;
+
+        private final List<Long> latencies;
+
+        private final List<Long> firstByteTimes;
+
+        private final AtomicInteger errors = new AtomicInteger();
+
+        private volatile String lastError;
+
+        private long elapsedNanos;
+
+        Report(Scenario scenario, int requests) {
+            this.scenario = scenario;
+            this.latencies = new ArrayList<>(requests);
+            this.firstByteTimes = new ArrayList<>(requests);
+        }
+
+        synchronized void recordSuccess(long latencyNanos, long firstByteNanos) {
+            latencies.add(latencyNanos);
+            firstByteTimes.add(firstByteNanos);
+        }
+
+        void recordError(String error) {
+            errors.incrementAndGet();
+            lastError = error;
+        }
+
+        public synchronized int getSucceeded() {
+            return latencies.size();
+        }
+
+        public int getErrors() {
+            return errors.get();
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        /**
+         * 成功请求数 / 总耗时
+         */
+        public synchronized double getThroughput() {
+            return elapsedNanos == 0 ? 0 : latencies.size() * 1e9 / elapsedNanos;
+        }
+
+        public synchronized Duration latency(double percentile) {
+            return percentile(latencies, percentile);
+        }
+
+        public synchronized Duration firstByte(double percentile) {
+            return percentile(firstByteTimes, percentile);
+        }
+
+        private static Duration percentile(List<Long> samples, double percentile) {
+            if (samples.isEmpty()) {
+                return Duration.ZERO;
+            }
+            long[] sorted = samples.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * sorted.length) - 1;
+            return Duration.ofNanos(sorted[Math.max(0, Math.min(index, sorted.length - 1))]);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-8s %6d %6d %8.2f %9d %9d %9d %9d",
+                    scenario, getSucceeded(), getErrors(), getThroughput(),
+                    latency(0.5).toMillis(), latency(0.99).toMillis(),
+                    firstByte(0.5).toMillis(), firstByte(0.99).toMillis());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("concurrency", 8);
+        int requests = Integer.getInteger("requests", 200);
+        String target = System.getProperty("target");
+
+        StubOllamaServer stub = null;
+        ConfigurableApplicationContext context = null;
+        try {
+            if (target == null) {
+                stub = StubOllamaServer.start("stub", System.getProperty("model", "qwen:0.5b"));
+                stub.setStream(Integer.getInteger("tokens", 64), Duration.ZERO);
+                stub.setLatency(Duration.ofMillis(Long.getLong("promptEvalMs", 200)),
+                        Duration.ofMillis(Long.getLong("tokenMs", 20)));
+                stub.setFailureRate(Double.parseDouble(System.getProperty("failureRate", "0")));
+                // 以命令行参数传入，优先级高于application.yml
+                context = new SpringApplicationBuilder(Main.class)
+                        .run("--server.port=0",
+                                "--ollama.base-url=" + stub.getUrl(),
+                                "--ollama.model=" + System.getProperty("model", "qwen:0.5b"),
+                                "--ollama.prompt-cache.warm-up=false",
+                                "--logging.level.org.example=INFO");
+                target = "http://127.0.0.1:" + context.getEnvironment().getProperty("local.server.port");
+            }
+
+            LoadDriver driver = new LoadDriver(target);
+            System.out.printf("target=%s concurrency=%d requests=%d%n", target, concurrency, requests);
+            System.out.printf("%-8s %6s %6s %8s %9s %9s %9s %9s%n",
+                    "scenario", "ok", "errors", "req/s", "p50 ms", "p99 ms", "ttfb p50", "ttfb p99");
+            for (String name : System.getProperty("scenarios", "chat,analyze,section").split(",")) {
+                Report report = driver.run(Scenario.valueOf(name.trim().toUpperCase(Locale.ROOT)), concurrency, requests);
+                System.out.println(report);
+                if (report.getLastError() != null) {
+                    System.out.println("  last error: " + report.getLastError());
+                }
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+            if (stub != null) {
+                stub.close();
+            }
+        }
+    }
+}
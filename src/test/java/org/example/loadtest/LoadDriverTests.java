@@ -0,0 +1,64 @@
+package org.example.loadtest;
+
+import org.example.support.StubOllamaServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 以替身Ollama端到端跑一轮小规模压测，确保流式和非流式接口在并发下都能正常返回
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class LoadDriverTests {
+
+    private static final StubOllamaServer STUB = startStub();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void ollamaProperties(DynamicPropertyRegistry registry) {
+        registry.add("ollama.base-url", STUB::getUrl);
+        registry.add("ollama.model", () -> "qwen:0.5b");
+        registry.add("ollama.prompt-cache.warm-up", () -> "false");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void streamingAndBlockingEndpointsSurviveConcurrentLoad() throws InterruptedException {
+        LoadDriver driver = new LoadDriver("http://127.0.0.1:" + port);
+
+        for (LoadDriver.Scenario scenario : LoadDriver.Scenario.values()) {
+            LoadDriver.Report report = driver.run(scenario, 4, 8);
+            assertEquals(0, report.getErrors(), scenario + ": " + report.getLastError());
+            assertEquals(8, report.getSucceeded());
+        }
+        // 流式接口的首个token应早于整个响应结束；只比较先后，不依赖具体耗时，避免在繁忙的CI上不稳定
+        LoadDriver.Report chat = driver.run(LoadDriver.Scenario.CHAT, 2, 4);
+        assertTrue(chat.firstByte(0.5).compareTo(chat.latency(0.5)) < 0, chat.toString());
+    }
+
+    private static StubOllamaServer startStub() {
+        try {
+            StubOllamaServer stub = StubOllamaServer.start("stub", "qwen:0.5b");
+            stub.setLatency(Duration.ofMillis(20), Duration.ofMillis(10));
+            return stub;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
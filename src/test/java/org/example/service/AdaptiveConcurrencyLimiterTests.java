@@ -0,0 +1,134 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.ConcurrencyLimiterProperties;
+import org.example.config.GenerationSchedulerProperties;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    @Test
+    void queuesBeyondLimitAndRejectsWhenQueueIsFull() {
+        ConcurrencyLimiterProperties properties = new ConcurrencyLimiterProperties();
+        properties.setInitialLimit(1);
+        properties.setMaxQueueSize(1);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, new GenerationSchedulerProperties(), new SimpleMeterRegistry());
+
+        Sinks.One<String> first = Sinks.one();
+        Mono<String> running = limiter.execute(RequestClass.SECTION, 100, first::asMono).cache();
+        running.subscribe();
+        Mono<String> queued = limiter.execute(RequestClass.SECTION, 100, () -> Mono.just("排队完成")).cache();
+        queued.subscribe();
+
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getQueueSize());
+
+        ConcurrencyLimitExceededException rejected = assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.execute(RequestClass.SECTION, 100, () -> Mono.just("x")).block(Duration.ofSeconds(5)));
+        assertEquals(properties.getRetryAfter().getSeconds(), rejected.getRetryAfterSeconds());
+
+        first.tryEmitValue("完成");
+        assertEquals("完成", running.block(Duration.ofSeconds(5)));
+        assertEquals("排队完成", queued.block(Duration.ofSeconds(5)));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueueSize());
+    }
+
+    @Test
+    void cancelledWaiterLeavesTheQueue() {
+        ConcurrencyLimiterProperties properties = new ConcurrencyLimiterProperties();
+        properties.setInitialLimit(1);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, new GenerationSchedulerProperties(), new SimpleMeterRegistry());
+
+        Sinks.One<String> first = Sinks.one();
+        limiter.execute(RequestClass.SECTION, 100, first::asMono).subscribe();
+        limiter.execute(RequestClass.SECTION, 100, () -> Mono.just("不会执行")).subscribe().dispose();
+
+        assertEquals(0, limiter.getQueueSize());
+        first.tryEmitValue("完成");
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void failuresShrinkTheLimit() {
+        ConcurrencyLimiterProperties properties = new ConcurrencyLimiterProperties();
+        properties.setInitialLimit(10);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, new GenerationSchedulerProperties(), new SimpleMeterRegistry());
+
+        limiter.execute(RequestClass.SECTION, 100, () -> Mono.error(new IllegalStateException("Ollama异常")))
+                .onErrorResume(e -> Mono.empty())
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(9.0, limiter.getLimit(), 0.001);
+    }
+
+    @Test
+    void shortInteractiveRequestsOvertakeQueuedBulkWork() {
+        ConcurrencyLimiterProperties properties = new ConcurrencyLimiterProperties();
+        properties.setInitialLimit(1);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, new GenerationSchedulerProperties(), new SimpleMeterRegistry());
+
+        List<String> order = new ArrayList<>();
+        Sinks.One<String> first = Sinks.one();
+        limiter.execute(RequestClass.BULK, 6000, first::asMono).subscribe();
+        limiter.execute(RequestClass.BULK, 6000, () -> Mono.fromCallable(() -> order.add("bulk"))).subscribe();
+        limiter.execute(RequestClass.INTERACTIVE, 300, () -> Mono.fromCallable(() -> order.add("interactive"))).subscribe();
+
+        assertEquals(2, limiter.getQueueSize());
+        first.tryEmitValue("完成");
+
+        assertEquals(2, order.size());
+        assertEquals("interactive", order.get(0));
+        assertEquals("bulk", order.get(1));
+    }
+
+    @Test
+    void bulkWorkIsCappedToItsShareOfTheLimit() {
+        ConcurrencyLimiterProperties properties = new ConcurrencyLimiterProperties();
+        properties.setInitialLimit(4);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, new GenerationSchedulerProperties(), new SimpleMeterRegistry());
+
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(RequestClass.BULK, 6000, () -> Mono.never()).subscribe();
+        }
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(1, limiter.getQueueSize(RequestClass.BULK));
+
+        limiter.execute(RequestClass.INTERACTIVE, 300, () -> Mono.never()).subscribe();
+        assertEquals(3, limiter.getInFlight());
+    }
+
+    @Test
+    void longBulkCallsDoNotShrinkTheLimitSetByShortInteractiveCalls() {
+        ConcurrencyLimiterProperties properties = new ConcurrencyLimiterProperties();
+        properties.setInitialLimit(16);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, new GenerationSchedulerProperties(), new SimpleMeterRegistry());
+        // 保持足够的并发，使延迟样本参与调整
+        for (int i = 0; i < 8; i++) {
+            limiter.execute(RequestClass.INTERACTIVE, 300, () -> Mono.never()).subscribe();
+        }
+        for (int i = 0; i < 3; i++) {
+            limiter.execute(RequestClass.INTERACTIVE, 300, () -> Mono.delay(Duration.ofMillis(10)))
+                    .block(Duration.ofSeconds(5));
+        }
+        double limit = limiter.getLimit();
+
+        // 耗时是交互调用的30倍，但成本高20倍且属于另一类别，不说明过载
+        limiter.execute(RequestClass.BULK, 6000, () -> Mono.delay(Duration.ofMillis(300)))
+                .block(Duration.ofSeconds(5));
+        limiter.execute(RequestClass.BULK, 6000, () -> Mono.delay(Duration.ofMillis(300)))
+                .block(Duration.ofSeconds(5));
+
+        assertTrue(limiter.getLimit() >= limit, limiter.getLimit() + " < " + limit);
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.ChunkedAnalysisProperties;
+import org.example.config.ConcurrencyLimiterProperties;
+import org.example.config.GenerationSchedulerProperties;
+import org.example.config.LlmCacheProperties;
+import org.example.config.OllamaBackendProperties;
+import org.example.config.ResilienceProperties;
+import org.example.config.StreamCoalescingProperties;
+import org.example.support.StubOllamaServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BidAnalysisServiceTests {
+
+    private static final String TENDER = "项目名称：市政道路照明改造工程\n预算金额：人民币 350 万元\n评分标准：技术40分，商务30分，价格30分\n";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StubOllamaServer server;
+
+    private final ChunkedAnalysisProperties chunking = new ChunkedAnalysisProperties();
+
+    private BidAnalysisService bidAnalysisService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubOllamaServer.start("a", "qwen:0.5b");
+
+        OllamaBackendProperties.Endpoint endpoint = new OllamaBackendProperties.Endpoint();
+        endpoint.setUrl(server.getUrl());
+        OllamaBackendPool pool = new OllamaBackendPool(new OllamaBackendProperties(),
+                Collections.singletonList(endpoint), WebClient.builder(), meterRegistry);
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimiterProperties(),
+                new GenerationSchedulerProperties(), meterRegistry);
+        OllamaService ollamaService = new OllamaService(pool, new LlmResponseCache(new LlmCacheProperties(), meterRegistry),
+                new InFlightRequestCoalescer(meterRegistry), limiter, new ResilienceProperties(), new StreamCoalescingProperties(), meterRegistry);
+        ReflectionTestUtils.setField(ollamaService, "model", "qwen:0.5b");
+
+        bidAnalysisService = new BidAnalysisService();
+        ReflectionTestUtils.setField(bidAnalysisService, "ollamaService", ollamaService);
+        ReflectionTestUtils.setField(bidAnalysisService, "generationMetrics", new GenerationMetrics(meterRegistry));
+        ReflectionTestUtils.setField(bidAnalysisService, "chunking", chunking);
+        ReflectionTestUtils.setField(bidAnalysisService, "normalizer", new TenderTextNormalizer(meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void fullAnalysisRunsThePartsConcurrently() {
+        // 预热连接，避免首次建连计入耗时
+        bidAnalysisService.identifyRiskPoints("预热").block(Duration.ofSeconds(10));
+        server.setChatDelay(Duration.ofMillis(400));
+
+        long start = System.nanoTime();
+        Map<String, Object> result = bidAnalysisService.analyzeBidDocumentFullyMerged(TENDER).block(Duration.ofSeconds(10));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 1000, "elapsed " + elapsedMillis + "ms");
+        assertEquals(new HashSet<>(Arrays.asList("keyInformation", "analysis", "risks", "scoringCriteria")), result.keySet());
+        assertEquals("市政道路照明改造工程", ((Map<?, ?>) result.get("keyInformation")).get("projectName"));
+        assertFalse(result.containsKey("errors"));
+    }
+
+    @Test
+    void streamsEachPartAndReportsFailuresPerPart() {
+        server.setFailing(true);
+
+        List<Map<String, Object>> parts = bidAnalysisService.analyzeBidDocumentFully(TENDER)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(4, parts.size());
+        for (Map<String, Object> part : parts) {
+            assertEquals("part", part.get("type"));
+            assertEquals(!"keyInformation".equals(part.get("part")), part.containsKey("error"), part.toString());
+        }
+        assertThrows(RuntimeException.class,
+                () -> bidAnalysisService.analyzeBidDocumentFullyMerged(TENDER).block(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void longTendersAreAnalysedChunkByChunkAndMerged() {
+        StringBuilder tender = new StringBuilder(TENDER);
+        for (int chapter = 1; chapter <= 6; chapter++) {
+            tender.append("第").append(chapter).append("章 技术要求\n");
+            tender.append("供应商应提供满足第").append(chapter).append("章要求的设备及服务，并承担相应的安装调试和培训责任。\n");
+        }
+        chunking.setMaxChunkTokens(60);
+        int chunks = new TenderChunker(60).split(TenderTextNormalizer.strip(tender.toString()).getText()).size();
+
+        Map<String, Object> result = bidAnalysisService.analyzeBidDocument(tender.toString()).block(Duration.ofSeconds(10));
+
+        assertTrue(chunks > 1);
+        // 每块一次map，加一次reduce
+        assertEquals(chunks + 1, server.getChatRequests());
+        assertEquals("a", result.get("analysis"));
+        assertEquals("市政道路照明改造工程", result.get("projectName"));
+
+        List<String> risks = bidAnalysisService.identifyRiskPoints(tender.toString()).block(Duration.ofSeconds(10));
+        // 各块的风险点合并去重，不再调用模型合并
+        assertEquals(Collections.singletonList("a"), risks);
+        assertEquals(2 * chunks + 1, server.getChatRequests());
+    }
+
+    @Test
+    void tendersWithTooManyChunksAreRejectedWithoutCallingTheModel() {
+        StringBuilder tender = new StringBuilder(TENDER);
+        for (int chapter = 1; chapter <= 6; chapter++) {
+            tender.append("第").append(chapter).append("章 技术要求\n");
+            tender.append("供应商应提供满足第").append(chapter).append("章要求的设备及服务，并承担相应的安装调试和培训责任。\n");
+        }
+        chunking.setMaxChunkTokens(60);
+        chunking.setMaxChunks(2);
+
+        assertThrows(DocumentTooLargeException.class,
+                () -> bidAnalysisService.analyzeBidDocument(tender.toString()).block(Duration.ofSeconds(10)));
+        assertEquals(0, server.getChatRequests());
+    }
+
+    @Test
+    void chunkedCallsAreAttributedToTheRequest() {
+        StringBuilder tender = new StringBuilder(TENDER);
+        for (int chapter = 1; chapter <= 6; chapter++) {
+            tender.append("第").append(chapter).append("章 技术要求\n");
+            tender.append("供应商应提供满足第").append(chapter).append("章要求的设备及服务，并承担相应的安装调试和培训责任。\n");
+        }
+        chunking.setMaxChunkTokens(60);
+        // 并行度小于块数，之后的块和合并在Reactor Netty线程上发起
+        chunking.setParallelism(2);
+        int chunks = new TenderChunker(60).split(TenderTextNormalizer.strip(tender.toString()).getText()).size();
+        assertTrue(chunks > 2);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            bidAnalysisService.analyzeBidDocument(tender.toString()).block(Duration.ofSeconds(10));
+            assertEquals(chunks + 1, LlmTiming.current().getCalls());
+
+            // 跳过缓存的请求在其他线程上发起的调用也不读缓存
+            request.setAttribute(LlmRequestContext.CACHE_BYPASS, Boolean.TRUE);
+            bidAnalysisService.analyzeBidDocument(tender.toString()).block(Duration.ofSeconds(10));
+            assertEquals(2 * (chunks + 1), server.getChatRequests());
+            assertEquals(2 * (chunks + 1), LlmTiming.current().getCalls());
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Test
+    void sendsOnlyTheRelevantChaptersToEachPrompt() {
+        bidAnalysisService.extractScoringCriteria(TenderStructureIndexTests.TENDER).block(Duration.ofSeconds(10));
+        bidAnalysisService.identifyRiskPoints(TenderStructureIndexTests.TENDER).block(Duration.ofSeconds(10));
+
+        String scoringPrompt = server.getChatBodies().get(0);
+        assertTrue(scoringPrompt.contains("技术40分"));
+        assertFalse(scoringPrompt.contains("第二章") || scoringPrompt.contains("交货期"));
+        String riskPrompt = server.getChatBodies().get(1);
+        assertTrue(riskPrompt.contains("投标保证金") && riskPrompt.contains("交货期"));
+        assertFalse(riskPrompt.contains("第二章") || riskPrompt.contains("评标办法"));
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.DocumentStoreProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DocumentStoreTests {
+
+    @TempDir
+    Path directory;
+
+    private DocumentStore store(boolean diskEnabled, SimpleMeterRegistry registry) {
+        DocumentStoreProperties properties = new DocumentStoreProperties();
+        properties.setDiskEnabled(diskEnabled);
+        properties.setDirectory(directory.toString());
+        return new DocumentStore(properties, registry);
+    }
+
+    @Test
+    void sameContentGetsTheSameId() {
+        DocumentStore store = store(false, new SimpleMeterRegistry());
+
+        String id = store.put("第一章 招标公告");
+
+        assertEquals(64, id.length());
+        assertEquals(id, store.put("第一章 招标公告"));
+        assertEquals("第一章 招标公告", store.get(id));
+        assertTrue(store.delete(id));
+        assertThrows(DocumentNotFoundException.class, () -> store.get(id));
+    }
+
+    @Test
+    void readsBackFromDiskWhenNotInMemory() {
+        String id = store(true, new SimpleMeterRegistry()).put("第二章 投标人须知");
+
+        // 新实例的内存层为空，只能从磁盘层读回
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DocumentStore restarted = store(true, registry);
+
+        assertEquals("第二章 投标人须知", restarted.get(id));
+        assertEquals("第二章 投标人须知", restarted.get(id));
+        assertEquals(1.0, registry.counter("document.store.disk.reads").count());
+    }
+
+    @Test
+    void resolvePrefersTheDocumentIdAndStoresInlineText() {
+        DocumentStore store = store(false, new SimpleMeterRegistry());
+        String id = store.put("已上传的招标文件");
+
+        assertEquals("已上传的招标文件", store.resolve(id, "请求中的原文").getContent());
+        DocumentStore.StoredDocument inline = store.resolve(null, "请求中的原文");
+        assertEquals("请求中的原文", store.get(inline.getId()));
+        assertNull(store.resolve(" ", "  "));
+        assertThrows(DocumentNotFoundException.class, () -> store.resolve("../../etc/passwd", null));
+        assertFalse(store.delete("../../etc/passwd"));
+    }
+}
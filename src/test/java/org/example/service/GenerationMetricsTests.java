@@ -0,0 +1,43 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GenerationMetricsTests {
+
+    @Test
+    void timesFromSubscriptionAndTagsOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        GenerationMetrics metrics = new GenerationMetrics(registry);
+        AtomicInteger subscriptions = new AtomicInteger();
+
+        Mono<String> call = Mono.fromCallable(subscriptions::incrementAndGet)
+                .delayElement(Duration.ofMillis(50))
+                .map(String::valueOf)
+                .transform(metrics.timed("BidSectionService.generateSectionContent"));
+        assertEquals(0, subscriptions.get());
+        assertEquals("1", call.block());
+        assertThrows(IllegalStateException.class, () -> Mono.<String>error(new IllegalStateException())
+                .transform(metrics.timed("BidSectionService.generateSectionContent"))
+                .block());
+
+        Timer success = registry.find("llm.operation")
+                .tags("service", "BidSectionService", "method", "generateSectionContent", "outcome", "success")
+                .timer();
+        assertNotNull(success);
+        assertEquals(1, success.count());
+        assertTrue(success.totalTime(TimeUnit.MILLISECONDS) >= 50);
+        assertEquals(1, registry.find("llm.operation").tag("outcome", "failure").timer().count());
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InFlightRequestCoalescerTests {
+
+    private final InFlightRequestCoalescer coalescer = new InFlightRequestCoalescer(new SimpleMeterRegistry());
+
+    @Test
+    void concurrentIdenticalCallsShareOneGeneration() {
+        AtomicInteger generations = new AtomicInteger();
+        Sinks.One<String> upstream = Sinks.one();
+
+        Mono<String> first = coalescer.coalesce("k", () -> {
+            generations.incrementAndGet();
+            return upstream.asMono();
+        });
+        Mono<String> second = coalescer.coalesce("k", () -> {
+            generations.incrementAndGet();
+            return upstream.asMono();
+        });
+
+        Mono<List<String>> both = Flux.merge(first, second).collectList().cache();
+        both.subscribe();
+        upstream.tryEmitValue("答案");
+
+        assertEquals(2, both.block(Duration.ofSeconds(5)).size());
+        assertEquals(1, generations.get());
+
+        // 生成结束后，新的请求会重新触发生成
+        coalescer.coalesce("k", () -> {
+            generations.incrementAndGet();
+            return Mono.just("新答案");
+        }).block(Duration.ofSeconds(5));
+        assertEquals(2, generations.get());
+    }
+
+    @Test
+    void lateStreamSubscriberReceivesReplayedTokens() {
+        AtomicInteger generations = new AtomicInteger();
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+
+        Flux<String> first = coalescer.coalesceStream("s", () -> {
+            generations.incrementAndGet();
+            return upstream.asFlux();
+        });
+        Mono<List<String>> firstTokens = first.collectList().cache();
+        firstTokens.subscribe();
+
+        upstream.tryEmitNext("你");
+        upstream.tryEmitNext("好");
+
+        Mono<List<String>> secondTokens = coalescer.coalesceStream("s", () -> {
+            generations.incrementAndGet();
+            return upstream.asFlux();
+        }).collectList().cache();
+        secondTokens.subscribe();
+
+        upstream.tryEmitNext("！");
+        upstream.tryEmitComplete();
+
+        assertEquals(3, firstTokens.block(Duration.ofSeconds(5)).size());
+        assertEquals(3, secondTokens.block(Duration.ofSeconds(5)).size());
+        assertEquals(1, generations.get());
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmTimingTests {
+
+    @Test
+    void accumulatesOllamaDurationsAcrossCalls() {
+        LlmTiming timing = new LlmTiming();
+        timing.recordQueueWait(2_000_000);
+        timing.recordCall(response(10, 30_000_000, 20, 100_000_000, 5_000_000), 150_000_000);
+        timing.recordCall(response(5, 10_000_000, 10, 50_000_000, 0), 70_000_000);
+
+        Map<String, Object> map = timing.toMap();
+        assertEquals(2, map.get("llmCalls"));
+        assertEquals(2.0, map.get("queueMs"));
+        assertEquals(5.0, map.get("loadMs"));
+        assertEquals(40.0, map.get("promptEvalMs"));
+        assertEquals(15L, map.get("promptTokens"));
+        assertEquals(150.0, map.get("evalMs"));
+        assertEquals(30L, map.get("evalTokens"));
+        assertEquals(220.0, map.get("llmMs"));
+
+        String header = timing.toServerTiming();
+        assertTrue(header.startsWith("queue;dur=2.0, load;dur=5.0, prompt;dur=40.0;desc=\"15 tokens\", "
+                + "eval;dur=150.0;desc=\"30 tokens\", llm;dur=220.0;desc=\"2 calls\", render;dur="), header);
+        assertTrue(header.contains(", total;dur="), header);
+    }
+
+    @Test
+    void reportsNormalizationOnlyWhenRecorded() {
+        LlmTiming timing = new LlmTiming();
+        assertFalse(timing.toMap().containsKey("removedChars"));
+
+        timing.recordNormalization(1200, 800, 3_000_000);
+        timing.recordNormalization(300, 200, 1_000_000);
+
+        Map<String, Object> map = timing.toMap();
+        assertEquals(4.0, map.get("normalizeMs"));
+        assertEquals(1500L, map.get("removedChars"));
+        assertEquals(1000L, map.get("removedTokens"));
+        assertTrue(timing.toServerTiming().startsWith("normalize;dur=4.0;desc=\"-1500 chars, -1000 tokens\", queue;dur="));
+    }
+
+    private static OllamaService.ChatResponse response(int promptTokens, long promptNanos, int evalTokens,
+                                                       long evalNanos, long loadNanos) {
+        OllamaService.ChatResponse response = new OllamaService.ChatResponse();
+        response.setPromptEvalCount(promptTokens);
+        response.setPromptEvalDuration(promptNanos);
+        response.setEvalCount(evalTokens);
+        response.setEvalDuration(evalNanos);
+        response.setLoadDuration(loadNanos);
+        return response;
+    }
+
+    @Test
+    void currentIsStoredOnTheRequestWithoutCreatingASession() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            LlmTiming timing = LlmTiming.current();
+
+            assertSame(timing, LlmTiming.current());
+            assertSame(timing, request.getAttribute(LlmTiming.ATTRIBUTE));
+            assertNull(request.getSession(false));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.OllamaBackendProperties;
+import org.example.support.StubOllamaServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaBackendPoolTests {
+
+    private static final String MODEL = "qwen:0.5b";
+
+    private final List<StubOllamaServer> servers = new ArrayList<>();
+
+    private final OllamaBackendProperties properties = new OllamaBackendProperties();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(StubOllamaServer::close);
+    }
+
+    @Test
+    void routesToTheBackendWithFewestOutstandingRequests() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", MODEL));
+
+        pool.execute(MODEL, client -> Mono.never()).subscribe();
+        OllamaBackend busy = pool.getBackends().get(0).getOutstanding() == 1
+                ? pool.getBackends().get(0) : pool.getBackends().get(1);
+
+        for (int i = 0; i < 3; i++) {
+            assertNotEquals(busy.getName(), chat(pool));
+        }
+    }
+
+    @Test
+    void routesModelsToBackendsThatHaveThem() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", "llama3:8b"));
+        pool.probeAll().block(Duration.ofSeconds(5));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals("a", chat(pool));
+        }
+        assertEquals(0, servers.get(1).getChatRequests());
+    }
+
+    @Test
+    void opensCircuitAfterConsecutiveFailures() throws IOException {
+        properties.getCircuitBreaker().setFailureThreshold(2);
+        properties.setAffinityWindow(Duration.ZERO);
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", MODEL));
+        servers.get(0).setFailing(true);
+
+        for (int i = 0; i < 6; i++) {
+            pool.execute(MODEL, OllamaBackendPoolTests::chatCall)
+                    .onErrorResume(e -> Mono.empty())
+                    .block(Duration.ofSeconds(5));
+        }
+
+        assertEquals(2, servers.get(0).getChatRequests());
+        assertEquals("OPEN", pool.getBackends().get(0).getCircuitState());
+        assertEquals("b", chat(pool));
+        assertEquals(2, meterRegistry.get("ollama.backend.requests").tag("backend", "a").tag("outcome", "failure")
+                .timer().count());
+        assertEquals(2.0, meterRegistry.get("ollama.errors").tag("backend", "a").counter().count());
+        assertEquals(1.0, meterRegistry.get("ollama.backend.circuit.opened").tag("backend", "a").counter().count());
+    }
+
+    @Test
+    void halfOpenCircuitClosesAfterSuccessfulTrial() throws IOException {
+        properties.getCircuitBreaker().setFailureThreshold(1);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(200));
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL));
+        servers.get(0).setFailing(true);
+
+        assertThrows(RuntimeException.class, () -> chat(pool));
+        assertThrows(NoAvailableBackendException.class, () -> chat(pool));
+
+        servers.get(0).setFailing(false);
+        sleep(Duration.ofMillis(300));
+        assertEquals("HALF_OPEN", pool.getBackends().get(0).getCircuitState());
+        assertEquals("a", chat(pool));
+        assertEquals("CLOSED", pool.getBackends().get(0).getCircuitState());
+    }
+
+    @Test
+    void deadlineFailsStalledCallAndCountsAsFailure() throws IOException {
+        properties.getCircuitBreaker().setFailureThreshold(1);
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL));
+        servers.get(0).setChatDelay(Duration.ofSeconds(2));
+
+        assertThrows(GenerationTimeoutException.class, () -> pool
+                .execute(MODEL, Duration.ofMillis(200), null, OllamaBackendPoolTests::chatCall)
+                .block(Duration.ofSeconds(5)));
+        assertEquals("OPEN", pool.getBackends().get(0).getCircuitState());
+    }
+
+    @Test
+    void hedgedRequestToAnotherBackendWinsWhenPrimaryStalls() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", MODEL));
+        servers.get(0).setChatDelay(Duration.ofSeconds(2));
+        // b上有一个在途请求，原请求会被路由到最空闲的a
+        assertTrue(pool.getBackends().get(1).tryBegin());
+
+        String winner = pool.execute(MODEL, Duration.ofSeconds(5), Duration.ofMillis(100),
+                        OllamaBackendPoolTests::chatCall)
+                .map(OllamaService.ChatResponse::getContent)
+                .block(Duration.ofSeconds(1));
+
+        assertEquals("b", winner);
+        assertEquals(1, servers.get(0).getChatRequests());
+    }
+
+    @Test
+    void hedgeStillWinsWhenPrimaryFailsAfterItWasSent() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", MODEL));
+        // a在对冲发出后返回500，b稍后成功
+        servers.get(0).setChatDelay(Duration.ofMillis(300));
+        servers.get(0).setFailing(true);
+        servers.get(1).setChatDelay(Duration.ofMillis(600));
+        assertTrue(pool.getBackends().get(1).tryBegin());
+
+        String winner = pool.execute(MODEL, Duration.ofSeconds(5), Duration.ofMillis(100),
+                        OllamaBackendPoolTests::chatCall)
+                .map(OllamaService.ChatResponse::getContent)
+                .block(Duration.ofSeconds(3));
+
+        assertEquals("b", winner);
+    }
+
+    @Test
+    void primaryErrorIsReturnedWhenBothAttemptsFail() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", MODEL));
+        servers.get(0).setChatDelay(Duration.ofMillis(300));
+        servers.get(0).setFailing(true);
+        servers.get(1).setFailing(true);
+        assertTrue(pool.getBackends().get(1).tryBegin());
+
+        assertThrows(WebClientResponseException.class, () -> pool
+                .execute(MODEL, Duration.ofSeconds(5), Duration.ofMillis(100), OllamaBackendPoolTests::chatCall)
+                .block(Duration.ofSeconds(3)));
+        assertEquals(1, servers.get(1).getChatRequests());
+    }
+
+    @Test
+    void primaryFailingBeforeTheHedgeDelayFailsFast() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL), StubOllamaServer.start("b", MODEL));
+        servers.get(0).setFailing(true);
+        assertTrue(pool.getBackends().get(1).tryBegin());
+
+        assertThrows(WebClientResponseException.class, () -> pool
+                .execute(MODEL, Duration.ofSeconds(5), Duration.ofMillis(500), OllamaBackendPoolTests::chatCall)
+                .block(Duration.ofMillis(400)));
+        assertEquals(0, servers.get(1).getChatRequests());
+    }
+
+    @Test
+    void failedHealthCheckTakesBackendOutOfRotation() throws IOException {
+        OllamaBackendPool pool = pool(StubOllamaServer.start("a", MODEL));
+        servers.get(0).setFailing(true);
+        pool.probeAll().block(Duration.ofSeconds(5));
+
+        assertFalse(pool.getBackends().get(0).isAvailable());
+        assertThrows(NoAvailableBackendException.class, () -> chat(pool));
+
+        servers.get(0).setFailing(false);
+        pool.probeAll().block(Duration.ofSeconds(5));
+        assertEquals("a", chat(pool));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private OllamaBackendPool pool(StubOllamaServer... stubs) {
+        List<OllamaBackendProperties.Endpoint> endpoints = new ArrayList<>();
+        for (StubOllamaServer stub : stubs) {
+            servers.add(stub);
+            OllamaBackendProperties.Endpoint endpoint = new OllamaBackendProperties.Endpoint();
+            endpoint.setName(stub.getName());
+            endpoint.setUrl(stub.getUrl());
+            endpoints.add(endpoint);
+        }
+        return new OllamaBackendPool(properties, endpoints, WebClient.builder(), meterRegistry);
+    }
+
+    private static String chat(OllamaBackendPool pool) {
+        return pool.execute(MODEL, OllamaBackendPoolTests::chatCall)
+                .map(OllamaService.ChatResponse::getContent)
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static Mono<OllamaService.ChatResponse> chatCall(WebClient client) {
+        return client.post()
+                .uri("/api/chat")
+                .bodyValue(Collections.singletonMap("model", MODEL))
+                .retrieve()
+                .bodyToMono(OllamaService.ChatResponse.class);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.ConcurrencyLimiterProperties;
+import org.example.config.GenerationSchedulerProperties;
+import org.example.config.LlmCacheProperties;
+import org.example.config.OllamaBackendProperties;
+import org.example.config.ResilienceProperties;
+import org.example.config.StreamCoalescingProperties;
+import org.example.support.StubOllamaServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaServiceStreamingTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final StreamCoalescingProperties coalescing = new StreamCoalescingProperties();
+
+    private StubOllamaServer server;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    private OllamaService ollamaService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = StubOllamaServer.start("a", "qwen:0.5b");
+        server.setStream(100, Duration.ofMillis(20));
+
+        OllamaBackendProperties.Endpoint endpoint = new OllamaBackendProperties.Endpoint();
+        endpoint.setUrl(server.getUrl());
+        OllamaBackendPool pool = new OllamaBackendPool(new OllamaBackendProperties(),
+                Collections.singletonList(endpoint), WebClient.builder(), meterRegistry);
+        limiter = new AdaptiveConcurrencyLimiter(new ConcurrencyLimiterProperties(),
+                new GenerationSchedulerProperties(), meterRegistry);
+        ollamaService = new OllamaService(pool, new LlmResponseCache(new LlmCacheProperties(), meterRegistry),
+                new InFlightRequestCoalescer(meterRegistry), limiter, new ResilienceProperties(), coalescing, meterRegistry);
+        ReflectionTestUtils.setField(ollamaService, "model", "qwen:0.5b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void streamEndsWithEndFrame() {
+        coalescing.setEnabled(false);
+        server.setStream(3, Duration.ZERO);
+
+        List<String> frames = ollamaService.streamChat("你好").collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(4, frames.size());
+        assertEquals("data: {\"type\":\"chunk\",\"content\":\"t0 \"}\n\n", frames.get(0));
+        assertEquals("data: {\"type\":\"end\"}\n\n", frames.get(3));
+    }
+
+    @Test
+    void cancellingTheSubscriberAbortsTheOllamaRequest() throws InterruptedException {
+        coalescing.setEnabled(false);
+        List<String> frames = ollamaService.streamChatWithSystemPrompt("你好", "系统提示")
+                .take(3)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(3, frames.size());
+        assertTrue(server.awaitStreamAborted(Duration.ofSeconds(5)));
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(1.0, meterRegistry.counter("ollama.stream.cancelled").count());
+        assertTrue(meterRegistry.counter("ollama.stream.tokens.saved").count() > 0);
+    }
+
+    @Test
+    void coalescesTokensAfterTheFirst() {
+        coalescing.setMaxDelay(Duration.ofMillis(200));
+        server.setStream(20, Duration.ofMillis(10));
+
+        List<String> frames = ollamaService.streamChat("你好").collectList().block(Duration.ofSeconds(5));
+
+        assertEquals("data: {\"type\":\"chunk\",\"content\":\"t0 \"}\n\n", frames.get(0));
+        assertTrue(frames.size() < 10, frames.toString());
+        assertEquals(20.0, meterRegistry.counter("ollama.stream.tokens").count());
+        assertEquals(frames.size() - 1, meterRegistry.counter("ollama.stream.frames").count());
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OllamaStreamDecoderTests {
+
+    private static final String STREAM =
+            "{\"model\":\"qwen:0.5b\",\"created_at\":\"2024-01-01T00:00:00Z\",\"message\":{\"role\":\"assistant\",\"content\":\"投标\"},\"done\":false}\n"
+            + "{\"model\":\"qwen:0.5b\",\"message\":{\"role\":\"assistant\",\"content\":\"\\\"文件\\\"\\n\"},\"done\":false}\n"
+            + "{\"model\":\"qwen:0.5b\",\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true,"
+            + "\"context\":[1,2,3],\"total_duration\":900,\"load_duration\":100,\"prompt_eval_count\":42,"
+            + "\"prompt_eval_duration\":300,\"eval_count\":2,\"eval_duration\":400}\n";
+
+    @Test
+    void decodesTokensAcrossArbitraryBufferBoundaries() {
+        byte[] bytes = STREAM.getBytes(StandardCharsets.UTF_8);
+        // 逐字节切分，覆盖多字节UTF-8字符和转义序列被拆开的情况
+        for (int chunkSize : new int[] {1, 3, 7, bytes.length}) {
+            AtomicReference<OllamaService.ChatResponse> done = new AtomicReference<>();
+            List<String> tokens = OllamaStreamDecoder.decode(split(bytes, chunkSize), done::set)
+                    .collectList()
+                    .block(Duration.ofSeconds(5));
+
+            assertEquals(Arrays.asList("投标", "\"文件\"\n"), tokens);
+            assertEquals(42, done.get().getPromptEvalCount());
+            assertEquals(300, done.get().getPromptEvalDuration());
+            assertEquals(2, done.get().getEvalCount());
+            assertEquals(400, done.get().getEvalDuration());
+            assertEquals(100, done.get().getLoadDuration());
+            assertEquals(900, done.get().getTotalDuration());
+        }
+    }
+
+    @Test
+    void decodesGenerateResponses() {
+        byte[] bytes = "{\"response\":\"a\",\"done\":false}\n{\"response\":\"b\",\"done\":true}\n"
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(Arrays.asList("a", "b"),
+                OllamaStreamDecoder.decode(split(bytes, 5)).collectList().block(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void surfacesErrorLinesAndTruncatedStreams() {
+        byte[] error = "{\"error\":\"model not found\"}\n".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalStateException.class,
+                () -> OllamaStreamDecoder.decode(split(error, 4)).blockLast(Duration.ofSeconds(5)));
+
+        byte[] truncated = "{\"message\":{\"content\":\"a\"".getBytes(StandardCharsets.UTF_8);
+        assertThrows(IllegalStateException.class,
+                () -> OllamaStreamDecoder.decode(split(truncated, 4)).blockLast(Duration.ofSeconds(5)));
+    }
+
+    private static Flux<DataBuffer> split(byte[] bytes, int chunkSize) {
+        List<DataBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += chunkSize) {
+            buffers.add(DefaultDataBufferFactory.sharedInstance.wrap(
+                    Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunkSize))));
+        }
+        return Flux.fromIterable(buffers);
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SseFrameEncoderTests {
+
+    @Test
+    void escapesQuotesBackslashesAndControlCharacters() {
+        assertEquals("data: {\"type\":\"chunk\",\"content\":\"a\\\"b\\\\c\\nd\\te\\u0001\"}\n\n",
+                SseFrameEncoder.chunk("a\"b\\c\nd\te\u0001"));
+    }
+
+    @Test
+    void encodesMultipleFieldsAndNullValues() {
+        assertEquals("data: {\"type\":\"start\",\"topic\":\"标书\",\"style\":\"\"}\n\n",
+                SseFrameEncoder.frame("start", "topic", "标书", "style", null));
+        assertEquals("data: {\"type\":\"end\"}\n\n", SseFrameEncoder.end());
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenderChunkerTests {
+
+    private static String tender() {
+        StringBuilder text = new StringBuilder("招标公告\n");
+        for (int chapter = 1; chapter <= 3; chapter++) {
+            text.append("第").append(chapter).append("章 第").append(chapter).append("部分要求\n");
+            for (int section = 1; section <= 4; section++) {
+                text.append(chapter).append('.').append(section).append(" 小节标题\n");
+                text.append("本小节规定了投标人需要满足的具体技术和商务条款。\n");
+            }
+        }
+        return text.toString();
+    }
+
+    @Test
+    void chunksRespectTheBudgetAndConcatenateToTheOriginal() {
+        String text = tender();
+
+        List<TenderChunker.Chunk> chunks = new TenderChunker(80).split(text);
+
+        assertTrue(chunks.size() > 1);
+        StringBuilder joined = new StringBuilder();
+        for (TenderChunker.Chunk chunk : chunks) {
+            assertTrue(TokenEstimator.estimate(chunk.getText()) <= 80, chunk.getText());
+            joined.append(chunk.getText());
+        }
+        assertEquals(text, joined.toString());
+    }
+
+    @Test
+    void cutsAtHeadingsAndCarriesTheChapter() {
+        List<TenderChunker.Chunk> chunks = new TenderChunker(80).split(tender());
+
+        for (TenderChunker.Chunk chunk : chunks.subList(1, chunks.size())) {
+            String firstLine = chunk.getText().substring(0, chunk.getText().indexOf('\n'));
+            assertTrue(firstLine.startsWith("第") || firstLine.matches("\\d\\.\\d 小节标题"), firstLine);
+            if (firstLine.startsWith("第")) {
+                assertNull(chunk.getHeading());
+            } else {
+                assertTrue(chunk.getHeading().matches("第\\d章 第\\d部分要求"), chunk.getHeading());
+            }
+        }
+    }
+
+    @Test
+    void splitsOversizedLinesByCharacters() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            text.append('标');
+        }
+
+        List<TenderChunker.Chunk> chunks = new TenderChunker(100).split(text.toString());
+
+        assertEquals(4, chunks.size());
+        for (TenderChunker.Chunk chunk : chunks) {
+            assertTrue(TokenEstimator.estimate(chunk.getText()) <= 100);
+        }
+    }
+}
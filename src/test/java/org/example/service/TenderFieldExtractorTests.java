@@ -0,0 +1,70 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TenderFieldExtractorTests {
+
+    private final TenderFieldExtractor extractor = TenderFieldExtractor.builder()
+            .field("projectName", TenderFieldExtractor.ValueType.LINE, "项目名称", "工程名称")
+            .field("budget", TenderFieldExtractor.ValueType.AMOUNT, "预算金额", "项目预算")
+            .field("qualification", TenderFieldExtractor.ValueType.LINE, "资格要求", "投标人资格要求")
+            .field("scoringCriteria", TenderFieldExtractor.ValueType.PARAGRAPH, "评分标准", "评标办法")
+            .build();
+
+    @Test
+    void extractsEveryFieldWithOffsetsInOnePass() {
+        StringBuilder text = new StringBuilder("第一章 招标公告\n项目名称： 政务云扩容项目 \n预算金额：1,250.00 万元（含税）\n评标办法：\n");
+        for (int i = 1; i <= 12; i++) {
+            text.append(i).append(". 第").append(i).append("项\n");
+        }
+
+        Map<String, TenderFieldExtractor.FieldMatch> fields = extractor.extract(text);
+
+        TenderFieldExtractor.FieldMatch name = fields.get("projectName");
+        assertEquals("政务云扩容项目", name.getValue());
+        assertEquals("项目名称", text.substring(name.getLabelStart(), name.getLabelEnd()));
+        assertEquals(name.getValue(), text.substring(name.getValueStart(), name.getValueEnd()));
+        assertEquals("1,250.00 万元", fields.get("budget").getValue());
+        // 首行加上其后最多10行
+        String scoring = fields.get("scoringCriteria").getValue();
+        assertEquals(11, scoring.split("\n").length);
+        assertEquals("1. 第1项", scoring.split("\n")[0]);
+        assertFalse(fields.containsKey("qualification"));
+    }
+
+    @Test
+    void earliestLabelWithAValidValueWins() {
+        String text = "工程名称：一号楼\n项目预算：待定\n投标人资格要求：具备施工总承包二级资质\n项目名称：二号楼\n预算金额：300万元";
+
+        Map<String, TenderFieldExtractor.FieldMatch> fields = extractor.extract(text);
+
+        assertEquals("一号楼", fields.get("projectName").getValue());
+        // “待定”不符合金额语法，取下一个标签
+        assertEquals("300万元", fields.get("budget").getValue());
+        // “投标人资格要求”比其中的“资格要求”开始得更早
+        assertEquals("投标人资格要求", fields.get("qualification").getLabel());
+        assertEquals("具备施工总承包二级资质", fields.get("qualification").getValue());
+    }
+
+    @Test
+    void extractAllReturnsOverlappingLabels() {
+        String text = "投标人资格要求：本地注册\n项目名称：A\n项目名称：B";
+
+        List<String> matches = extractor.extractAll(text).stream()
+                .map(match -> match.getLabel() + "=" + match.getValue())
+                .collect(Collectors.toList());
+
+        assertEquals(4, matches.size());
+        assertEquals("投标人资格要求=本地注册", matches.get(0));
+        assertEquals("资格要求=本地注册", matches.get(1));
+        assertEquals("项目名称=A", matches.get(2));
+        assertEquals("项目名称=B", matches.get(3));
+    }
+}
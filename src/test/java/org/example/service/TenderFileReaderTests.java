@@ -0,0 +1,86 @@
+package org.example.service;
+
+import org.example.config.DocumentUploadProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenderFileReaderTests {
+
+    private static final String TENDER = "第一章 招标公告\n项目名称：市政道路改造工程\n预算金额：500万元\n";
+
+    private static TenderFileReader reader(DocumentUploadProperties properties) {
+        return new TenderFileReader(properties);
+    }
+
+    private static MockMultipartFile file(byte[] bytes) {
+        return new MockMultipartFile("file", "tender.txt", "text/plain", bytes);
+    }
+
+    @Test
+    void decodesGbkAndUtf8Uploads() {
+        TenderFileReader reader = reader(new DocumentUploadProperties());
+
+        TenderFileReader.Result gbk = reader.read(file(TENDER.getBytes(TenderFileReader.GB18030)));
+        assertEquals(TENDER, gbk.getContent());
+        assertEquals(TenderFileReader.GB18030, gbk.getCharset());
+
+        TenderFileReader.Result utf8 = reader.read(file(TENDER.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(TENDER, utf8.getContent());
+        assertEquals(StandardCharsets.UTF_8, utf8.getCharset());
+    }
+
+    @Test
+    void honoursByteOrderMarks() {
+        TenderFileReader reader = reader(new DocumentUploadProperties());
+        byte[] body = TENDER.getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[body.length + 3];
+        withBom[0] = (byte) 0xEF;
+        withBom[1] = (byte) 0xBB;
+        withBom[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, withBom, 3, body.length);
+
+        assertEquals(TENDER, reader.read(file(withBom)).getContent());
+        // getBytes(UTF_16) 写入大端BOM
+        assertEquals(TENDER, reader.read(file(TENDER.getBytes(StandardCharsets.UTF_16))).getContent());
+    }
+
+    @Test
+    void fallsBackToGb18030WhenInvalidUtf8AppearsAfterTheSample() {
+        DocumentUploadProperties properties = new DocumentUploadProperties();
+        properties.setSampleBytes(16);
+        String text = "Tender notice, section one.\n" + TENDER;
+
+        TenderFileReader.Result result = reader(properties).read(file(text.getBytes(TenderFileReader.GB18030)));
+
+        assertEquals(text, result.getContent());
+        assertEquals(TenderFileReader.GB18030, result.getCharset());
+    }
+
+    @Test
+    void truncatedSequenceAtTheEndOfTheSampleIsNotInvalid() {
+        byte[] bytes = "招标".getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(TenderFileReader.isValidUtf8(bytes, bytes.length - 1, false));
+        assertFalse(TenderFileReader.isValidUtf8(bytes, bytes.length - 1, true));
+    }
+
+    @Test
+    void rejectsUploadsOverTheLimits() {
+        DocumentUploadProperties properties = new DocumentUploadProperties();
+        properties.setMaxBytes(16);
+        assertThrows(DocumentTooLargeException.class,
+                () -> reader(properties).read(file(TENDER.getBytes(StandardCharsets.UTF_8))));
+
+        DocumentUploadProperties chars = new DocumentUploadProperties();
+        chars.setMaxChars(10);
+        assertThrows(DocumentTooLargeException.class,
+                () -> reader(chars).read(file(TENDER.getBytes(StandardCharsets.UTF_8))));
+    }
+}
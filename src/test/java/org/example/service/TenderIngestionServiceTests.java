@@ -0,0 +1,158 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.encryption.AccessPermission;
+import org.apache.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.example.config.DocumentIngestionProperties;
+import org.example.config.DocumentUploadProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenderIngestionServiceTests {
+
+    private TenderIngestionService service;
+
+    private TenderIngestionService service(DocumentIngestionProperties properties, DocumentUploadProperties upload) {
+        service = new TenderIngestionService(new TenderFileReader(upload), properties, upload,
+                new GenerationMetrics(new SimpleMeterRegistry()));
+        return service;
+    }
+
+    @AfterEach
+    void dispose() {
+        if (service != null) {
+            service.dispose();
+        }
+    }
+
+    private static MockMultipartFile file(String name, byte[] bytes) {
+        return new MockMultipartFile("file", name, "application/octet-stream", bytes);
+    }
+
+    private static byte[] pdf(int pages) throws IOException {
+        try (PDDocument document = new PDDocument(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 1; i <= pages; i++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.beginText();
+                    content.setFont(PDType1Font.HELVETICA, 12);
+                    content.newLineAtOffset(72, 720);
+                    content.showText("Page " + i);
+                    content.endText();
+                }
+            }
+            document.save(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] docx(String documentXml) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            zip.write(documentXml.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    void extractsPdfPageRangesInPageOrder() throws IOException {
+        DocumentIngestionProperties properties = new DocumentIngestionProperties();
+        properties.setPdfPagesPerTask(3);
+
+        TenderIngestionService.Result result = service(properties, new DocumentUploadProperties())
+                .ingest(file("tender.pdf", pdf(10))).block();
+
+        assertEquals("pdf", result.getFormat());
+        assertEquals(10, result.getPages());
+        int previous = -1;
+        for (int i = 1; i <= 10; i++) {
+            int index = result.getContent().indexOf("Page " + i + "\n");
+            assertTrue(index > previous, "第" + i + "页顺序错误: " + result.getContent());
+            previous = index;
+        }
+    }
+
+    @Test
+    void rejectsPdfsOverThePageLimit() throws IOException {
+        DocumentIngestionProperties properties = new DocumentIngestionProperties();
+        properties.setMaxPages(5);
+        TenderIngestionService service = service(properties, new DocumentUploadProperties());
+        MockMultipartFile pdf = file("tender.pdf", pdf(6));
+
+        assertThrows(DocumentTooLargeException.class, () -> service.ingest(pdf).block());
+    }
+
+    @Test
+    void rejectsEncryptedPdfsAsUnsupported() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PDDocument document = PDDocument.load(pdf(1))) {
+            document.protect(new StandardProtectionPolicy("owner", "user", new AccessPermission()));
+            document.save(out);
+        }
+        TenderIngestionService service = service(new DocumentIngestionProperties(), new DocumentUploadProperties());
+        MockMultipartFile pdf = file("tender.pdf", out.toByteArray());
+
+        assertThrows(UnsupportedDocumentException.class, () -> service.ingest(pdf).block());
+    }
+
+    @Test
+    void extractsDocxBodyTextOnly() throws IOException {
+        String xml = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+                + "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>"
+                + "<w:p><w:pPr><w:tabs><w:tab w:val=\"left\" w:pos=\"720\"/></w:tabs></w:pPr>"
+                + "<w:r><w:t>第一章 招标公告</w:t></w:r></w:p>"
+                + "<w:p><w:r><w:t xml:space=\"preserve\">项目名称：</w:t></w:r><w:r><w:tab/><w:t>市政道路改造工程</w:t></w:r>"
+                + "<w:r><w:delText>旧名称</w:delText></w:r></w:p>"
+                + "</w:body></w:document>";
+
+        TenderIngestionService.Result result = service(new DocumentIngestionProperties(), new DocumentUploadProperties())
+                .ingest(file("tender.docx", docx(xml))).block();
+
+        assertEquals("docx", result.getFormat());
+        assertEquals("第一章 招标公告\n项目名称：\t市政道路改造工程\n", result.getContent());
+    }
+
+    @Test
+    void decodesOtherFilesAsText() {
+        String tender = "第一章 招标公告\n预算金额：500万元\n";
+
+        TenderIngestionService.Result result = service(new DocumentIngestionProperties(), new DocumentUploadProperties())
+                .ingest(file("tender.txt", tender.getBytes(TenderFileReader.GB18030))).block();
+
+        assertEquals("text", result.getFormat());
+        assertEquals(tender, result.getContent());
+        assertEquals(TenderFileReader.GB18030.name(), result.describe().get("charset"));
+    }
+
+    @Test
+    void rejectsZipFilesThatAreNotDocx() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("xl/workbook.xml"));
+            zip.write("<workbook/>".getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        TenderIngestionService service = service(new DocumentIngestionProperties(), new DocumentUploadProperties());
+        MockMultipartFile xlsx = file("tender.xlsx", out.toByteArray());
+
+        assertThrows(UnsupportedDocumentException.class, () -> service.ingest(xlsx).block());
+    }
+}
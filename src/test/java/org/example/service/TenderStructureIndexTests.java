@@ -0,0 +1,83 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenderStructureIndexTests {
+
+    static final String TENDER = "招标公告\n项目名称：政务云扩容项目\n"
+            + "第一章 投标人须知\n一、资格要求\n具备信息系统集成资质。\n二、投标保证金\n人民币5万元。\n"
+            + "第二章 技术要求\n1. 服务器\n不少于20台。\n2. 存储\n不少于500TB。\n"
+            + "第三章 评标办法\n一、评分标准\n技术40分，商务30分，价格30分。\n（一）技术评分\n按响应程度打分。\n"
+            + "第四章 合同条款\n交货期：合同签订后30日内。\n";
+
+    @Test
+    void indexesHeadingsWithLevelsAndOffsets() {
+        TenderStructureIndex index = TenderStructureIndex.build(TENDER);
+
+        List<String> headings = index.getSections().stream()
+                .map(section -> section.getLevel() + ":" + section.getHeading())
+                .collect(Collectors.toList());
+        assertEquals("1:第一章 投标人须知", headings.get(0));
+        assertEquals("2:一、资格要求", headings.get(1));
+        assertEquals("3:1. 服务器", headings.get(4));
+        assertEquals("3:（一）技术评分", headings.get(8));
+
+        TenderStructureIndex.Section chapterTwo = index.getSections().get(3);
+        assertEquals("第二章 技术要求\n1. 服务器\n不少于20台。\n2. 存储\n不少于500TB。\n",
+                TENDER.substring(chapterTwo.getStart(), chapterTwo.getEnd()));
+        TenderStructureIndex.Section last = index.getSections().get(index.getSections().size() - 1);
+        assertEquals(TENDER.length(), last.getEnd());
+    }
+
+    @Test
+    void excerptContainsOnlyTheOutermostMatchingSections() {
+        TenderStructureIndex index = TenderStructureIndex.build(TENDER);
+
+        // “评标办法”包含“评分标准”和“技术评分”，只取一次
+        assertEquals(1, index.sectionsFor(TenderStructureIndex.Topic.SCORING).size());
+        assertEquals("第三章 评标办法\n一、评分标准\n技术40分，商务30分，价格30分。\n（一）技术评分\n按响应程度打分。\n",
+                index.excerpt(TenderStructureIndex.Topic.SCORING));
+
+        String risk = index.excerpt(TenderStructureIndex.Topic.RISK);
+        assertTrue(risk.startsWith("第一章 投标人须知\n"));
+        assertTrue(risk.endsWith("第四章 合同条款\n交货期：合同签订后30日内。\n"));
+        assertFalse(risk.contains("第二章"));
+    }
+
+    @Test
+    void excerptIsNullWithoutMatchingHeadings() {
+        TenderStructureIndex index = TenderStructureIndex.build("项目名称：A\n评分标准：综合评分\n");
+
+        assertNull(index.excerpt(TenderStructureIndex.Topic.SCORING));
+    }
+
+    @Test
+    void numberedBodyClausesAreNotHeadings() {
+        assertEquals(3, TenderStructureIndex.headingLevel("1. 验收标准\n"));
+        assertEquals(0, TenderStructureIndex.headingLevel("1. 合同签订后30日内完成验收。\n"));
+        assertEquals(0, TenderStructureIndex.headingLevel("2、投标人须在开标时间前递交保证金，逾期不予受理\n"));
+        assertEquals(0, TenderStructureIndex.headingLevel(
+                "（三）投标人应当按照招标文件的要求编制投标文件并对其内容的真实性负责并承担由此产生的全部法律责任\n"));
+    }
+
+    @Test
+    void excerptIsNullWhenMatchingSectionsCoverTooLittleOfTheDocument() {
+        StringBuilder text = new StringBuilder("第一章 项目概况\n");
+        for (int i = 0; i < 200; i++) {
+            text.append("本项目建设内容包括政务云平台扩容及配套服务。\n");
+        }
+        text.append("第二章 评分办法\n技术40分。\n");
+        TenderStructureIndex index = TenderStructureIndex.build(text.toString());
+
+        assertEquals(1, index.sectionsFor(TenderStructureIndex.Topic.SCORING).size());
+        assertNull(index.excerpt(TenderStructureIndex.Topic.SCORING));
+    }
+}
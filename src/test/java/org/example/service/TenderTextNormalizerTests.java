@@ -0,0 +1,82 @@
+package org.example.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TenderTextNormalizerTests {
+
+    private static final String BOILERPLATE = "投标人应遵守国家有关法律法规，对投标文件的真实性、合法性负责，"
+            + "如有虚假，招标人有权取消其投标资格并没收投标保证金，由此产生的一切法律责任由投标人自行承担，"
+            + "招标人不承担任何责任，投标人不得以任何理由提出异议或要求赔偿。";
+
+    @Test
+    void removesPageHeadersFootersAndNumbers() {
+        StringBuilder text = new StringBuilder();
+        for (int page = 1; page <= 4; page++) {
+            text.append("政务云扩容项目招标文件   第").append(page).append("页 共4页\r\n")
+                    .append("第").append(page).append("章 第").append(page).append("部分\r\n")
+                    .append("本章\t正文  内容").append(page).append("。\r\n\r\n\r\n")
+                    .append("- ").append(page).append(" -\f");
+        }
+
+        TenderTextNormalizer.Result result = TenderTextNormalizer.strip(text.toString());
+
+        assertEquals("政务云扩容项目招标文件 第1页 共4页\n第1章 第1部分\n本章 正文 内容1。\n\n"
+                + "第2章 第2部分\n本章 正文 内容2。\n\n"
+                + "第3章 第3部分\n本章 正文 内容3。\n\n"
+                + "第4章 第4部分\n本章 正文 内容4。", result.getText());
+        assertEquals(text.length() - result.getText().length(), result.getRemovedChars());
+        assertTrue(result.getRemovedTokens() > 0);
+    }
+
+    @Test
+    void keepsStandaloneNumbersAndShortRepeatedLines() {
+        String text = "数量\n20\n单位\n台\n数量\n20\n单位\n台\n数量\n20\n单位\n台";
+
+        assertEquals(text, TenderTextNormalizer.strip(text).getText());
+    }
+
+    @Test
+    void removesParagraphsThatDifferOnlyInWhitespaceAndPunctuation() {
+        String text = "第一章 投标须知\n\n" + BOILERPLATE + "\n\n第二章 合同条款\n\n"
+                + BOILERPLATE.replace("，", ", ") + "\n\n第三章 附件\n\n"
+                + BOILERPLATE.replace("投标保证金", "投标保证金5万元");
+
+        String normalized = TenderTextNormalizer.strip(text).getText();
+
+        assertEquals("第一章 投标须知\n\n" + BOILERPLATE + "\n\n第二章 合同条款\n\n第三章 附件\n\n"
+                + BOILERPLATE.replace("投标保证金", "投标保证金5万元"), normalized);
+    }
+
+    @Test
+    void countsRemovedCharsAndTokens() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TenderTextNormalizer normalizer = new TenderTextNormalizer(registry);
+
+        TenderTextNormalizer.Result result = normalizer.normalize("正文\n\n\n\n第 1 页\n正文");
+
+        assertEquals("正文\n\n正文", result.getText());
+        assertEquals(8.0, registry.counter("prompt.normalizer.removed.chars").count());
+        assertEquals(result.getRemovedTokens(), registry.counter("prompt.normalizer.removed.tokens").count());
+    }
+
+    @Test
+    void keepsClausesThatDifferInOneWord() {
+        String text = BOILERPLATE + "\n\n" + BOILERPLATE.replace("投标人不得", "投标人应当") + "\n\n"
+                + BOILERPLATE.replace("招标人有权", "投标人有权");
+
+        assertEquals(text, TenderTextNormalizer.strip(text).getText());
+    }
+
+    @Test
+    void groupsWrappedLinesIntoParagraphsWithoutBlankLines() {
+        String wrapped = BOILERPLATE.substring(0, 40) + "\n" + BOILERPLATE.substring(40);
+        String text = "第一章 投标须知\n" + wrapped + "\n第二章 合同条款\n" + wrapped + "\n第三章 附件\n附件一";
+
+        assertEquals("第一章 投标须知\n" + wrapped + "\n第二章 合同条款\n第三章 附件\n附件一",
+                TenderTextNormalizer.strip(text).getText());
+    }
+}
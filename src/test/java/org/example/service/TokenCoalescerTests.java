@@ -0,0 +1,64 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenCoalescerTests {
+
+    @Test
+    void firstTokenIsEmittedAloneAndTheRestBySize() {
+        List<String> chunks = TokenCoalescer.coalesce(Flux.just("首", "ab", "cd", "ef", "g"), Duration.ofSeconds(10), 4)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(Arrays.asList("首", "abcd", "efg"), chunks);
+    }
+
+    @Test
+    void pendingTokensAreFlushedAfterMaxDelay() {
+        Flux<String> tokens = Flux.interval(Duration.ofMillis(10)).take(20).map(i -> "t" + i);
+
+        List<String> chunks = TokenCoalescer.coalesce(tokens, Duration.ofMillis(60), 1024)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals("t0", chunks.get(0));
+        assertTrue(chunks.size() > 2 && chunks.size() < 10, chunks.toString());
+        assertEquals(String.join("", Flux.range(0, 20).map(i -> "t" + i).toIterable()), String.join("", chunks));
+    }
+
+    @Test
+    void pendingTokensAreFlushedBeforeAnError() {
+        Flux<String> tokens = Flux.just("a", "b", "c").concatWith(Flux.error(new IllegalStateException("断开")));
+
+        List<String> chunks = new ArrayList<>();
+        assertThrows(IllegalStateException.class, () -> TokenCoalescer.coalesce(tokens, Duration.ofSeconds(10), 1024)
+                .doOnNext(chunks::add)
+                .blockLast(Duration.ofSeconds(5)));
+        assertEquals(Arrays.asList("a", "bc"), chunks);
+    }
+
+    @Test
+    void slowConsumersDoNotOverflowTheFlushTimer() {
+        // 与WebClient的响应一样支持背压的token流
+        Flux<String> tokens = Flux.range(0, 100).map(i -> "t" + i).delayElements(Duration.ofMillis(2));
+
+        // 下游每个分片处理20ms，期间定时器仍按1ms触发
+        List<String> chunks = TokenCoalescer.coalesce(tokens, Duration.ofMillis(1), 1024)
+                .concatMap(chunk -> Mono.just(chunk).delayElement(Duration.ofMillis(20)), 1)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertEquals(String.join("", Flux.range(0, 100).map(i -> "t" + i).toIterable()), String.join("", chunks));
+    }
+}
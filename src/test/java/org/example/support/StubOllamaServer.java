@@ -0,0 +1,295 @@
+package org.example.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的Ollama替身，基于JDK自带的HttpServer监听随机端口
+ *
+ * 支持 /api/tags、/api/chat、/api/generate 和 /api/embeddings，非流式回复内容为节点名称，
+ * 便于断言请求被路由到了哪个节点；流式请求按固定间隔逐个输出token，客户端提前断开时记录被中止的流。
+ * 提示词评估延迟、每token延迟和失败率可调，用于端到端压测（见 {@code org.example.loadtest.LoadDriver}）。
+ */
+public class StubOllamaServer implements AutoCloseable {
+
+    private static final int EMBEDDING_DIMENSIONS = 16;
+
+    private final String name;
+
+    private final List<String> models;
+
+    private final HttpServer server;
+
+    private final AtomicInteger chatRequests = new AtomicInteger();
+
+    private final List<String> chatBodies = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger abortedStreams = new AtomicInteger();
+
+    private final CountDownLatch streamAborted = new CountDownLatch(1);
+
+    private volatile int streamTokens = 20;
+
+    private volatile long tokenIntervalMillis = 50;
+
+    private volatile double failureRate;
+
+    private volatile long chatDelayMillis;
+
+    private volatile long promptEvalDelayMillis;
+
+    /**
+     * 非流式请求是否也按每token延迟模拟生成耗时
+     */
+    private volatile boolean blockingLatency;
+
+    private StubOllamaServer(String name, List<String> models) throws IOException {
+        this.name = name;
+        this.models = models;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.createContext("/api/tags", this::handleTags);
+        this.server.createContext("/api/chat", this::handleChat);
+        this.server.createContext("/api/generate", this::handleGenerate);
+        this.server.createContext("/api/embeddings", this::handleEmbeddings);
+        this.server.start();
+    }
+
+    public static StubOllamaServer start(String name, String... models) throws IOException {
+        return new StubOllamaServer(name, Arrays.asList(models));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int getChatRequests() {
+        return chatRequests.get();
+    }
+
+    /**
+     * 收到的 /api/chat 请求体
+     */
+    public List<String> getChatBodies() {
+        return chatBodies;
+    }
+
+    public int getAbortedStreams() {
+        return abortedStreams.get();
+    }
+
+    /**
+     * 等待直到有流式响应因客户端断开而中止
+     */
+    public boolean awaitStreamAborted(Duration timeout) throws InterruptedException {
+        return streamAborted.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 流式响应输出的token数和间隔
+     */
+    public void setStream(int tokens, Duration interval) {
+        this.streamTokens = tokens;
+        this.tokenIntervalMillis = interval.toMillis();
+    }
+
+    /**
+     * 为true时所有接口返回500
+     */
+    public void setFailing(boolean failing) {
+        this.failureRate = failing ? 1 : 0;
+    }
+
+    /**
+     * 按比例随机返回500，模拟不稳定的节点
+     */
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    /**
+     * 模拟真实的生成耗时：首个token前等待提示词评估时间，之后每个token间隔 perToken；
+     * 非流式请求等待全部token生成完毕后返回
+     */
+    public void setLatency(Duration promptEval, Duration perToken) {
+        this.promptEvalDelayMillis = promptEval.toMillis();
+        this.tokenIntervalMillis = perToken.toMillis();
+        this.blockingLatency = true;
+    }
+
+    /**
+     * /api/chat 返回前的延迟，模拟卡顿的节点
+     */
+    public void setChatDelay(Duration delay) {
+        this.chatDelayMillis = delay.toMillis();
+    }
+
+    private void handleTags(HttpExchange exchange) throws IOException {
+        if (failureRate >= 1) {
+            respond(exchange, 500, "{\"error\":\"stub failure\"}");
+            return;
+        }
+        StringBuilder body = new StringBuilder("{\"models\":[");
+        for (int i = 0; i < models.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"name\":\"").append(models.get(i)).append("\"}");
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    private void handleChat(HttpExchange exchange) throws IOException {
+        chatRequests.incrementAndGet();
+        handleGeneration(exchange, "message");
+    }
+
+    private void handleGenerate(HttpExchange exchange) throws IOException {
+        handleGeneration(exchange, "response");
+    }
+
+    /**
+     * /api/chat 的内容在 message.content 中，/api/generate 的内容在 response 中，其余字段相同
+     */
+    private void handleGeneration(HttpExchange exchange, String field) throws IOException {
+        String request = read(exchange.getRequestBody());
+        if ("message".equals(field)) {
+            chatBodies.add(request);
+        }
+        sleep(chatDelayMillis);
+        if (shouldFail()) {
+            respond(exchange, 500, "{\"error\":\"stub failure\"}");
+            return;
+        }
+        sleep(promptEvalDelayMillis);
+        if (request.contains("\"stream\":true")) {
+            stream(exchange, field);
+            return;
+        }
+        if (blockingLatency) {
+            sleep(streamTokens * tokenIntervalMillis);
+        }
+        respond(exchange, 200, "{" + content(field, name) + ",\"done\":true," + stats(1, streamTokens) + "}");
+    }
+
+    /**
+     * 返回由输入哈希生成的固定向量
+     */
+    private void handleEmbeddings(HttpExchange exchange) throws IOException {
+        String request = read(exchange.getRequestBody());
+        sleep(promptEvalDelayMillis);
+        if (shouldFail()) {
+            respond(exchange, 500, "{\"error\":\"stub failure\"}");
+            return;
+        }
+        Random random = new Random(request.hashCode());
+        StringBuilder body = new StringBuilder("{\"embedding\":[");
+        for (int i = 0; i < EMBEDDING_DIMENSIONS; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append(random.nextDouble() * 2 - 1);
+        }
+        respond(exchange, 200, body.append("]}").toString());
+    }
+
+    /**
+     * 以NDJSON分块输出，每行一个token，最后一行 done=true 并带上耗时统计
+     */
+    private void stream(HttpExchange exchange, String field) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            for (int i = 0; i < streamTokens; i++) {
+                out.write(("{" + content(field, "t" + i + " ") + ",\"done\":false}\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(tokenIntervalMillis);
+            }
+            out.write(("{" + content(field, "") + ",\"done\":true," + stats(1, streamTokens) + "}\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.close();
+        } catch (IOException e) {
+            abortedStreams.incrementAndGet();
+            streamAborted.countDown();
+            exchange.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        }
+    }
+
+    private static String content(String field, String text) {
+        return "message".equals(field)
+                ? "\"message\":{\"role\":\"assistant\",\"content\":\"" + text + "\"}"
+                : "\"response\":\"" + text + "\"";
+    }
+
+    private String stats(int promptTokens, int evalTokens) {
+        return "\"prompt_eval_count\":" + promptTokens
+                + ",\"prompt_eval_duration\":" + TimeUnit.MILLISECONDS.toNanos(promptEvalDelayMillis)
+                + ",\"eval_count\":" + evalTokens
+                + ",\"eval_duration\":" + TimeUnit.MILLISECONDS.toNanos((long) evalTokens * tokenIntervalMillis);
+    }
+
+    private boolean shouldFail() {
+        double rate = failureRate;
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            body.write(buffer, 0, n);
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}